@@ -0,0 +1,32 @@
+package org.tinymediamanager.scraper.vixen;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler, so every result comes with its allocation rate (gc.alloc.rate.norm = bytes
+ * per operation). Accepts the usual JMH command line options, e.g. a regular expression to select benchmarks. The
+ * folder of the recorded pages (-Dfixtures) is passed on to the forked JVMs.
+ *
+ * @author YourName
+ */
+public class BenchmarkRunner {
+  private BenchmarkRunner() {
+    // hide the public constructor for utility classes
+  }
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class);
+    if (Fixtures.FOLDER != null) {
+      builder.jvmArgsAppend("-Dfixtures=" + Fixtures.FOLDER);
+    }
+    Options options = builder.build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,55 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Loads the recorded pages from src/main/resources/fixtures. These are trimmed copies of the pages of the site; to
+ * measure the parse cost of the full pages, save them from the browser as search.html, scene.html and model.html into a
+ * folder and pass it with -Dfixtures=&lt;folder&gt;.
+ *
+ * @author YourName
+ */
+final class Fixtures {
+  static final String SEARCH_PAGE = "search.html";
+  static final String SCENE_PAGE  = "scene.html";
+  static final String MODEL_PAGE  = "model.html";
+
+  static final String SEARCH_URL  = "https://www.vixen.com/search?q=summer";
+  static final String SCENE_URL   = "https://www.vixen.com/videos/summer-heat-3";
+  static final String MODEL_URL   = "https://www.vixen.com/models/angelika-grays";
+  static final String FOLDER      = System.getProperty("fixtures");
+
+  private Fixtures() {
+    // hide the public constructor for utility classes
+  }
+
+  static byte[] bytes(String name) {
+    if (FOLDER != null) {
+      try {
+        return Files.readAllBytes(Paths.get(FOLDER, name));
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    try (InputStream is = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+      if (is == null) {
+        throw new IllegalStateException("missing fixture " + name);
+      }
+      return is.readAllBytes();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static String text(String name) {
+    return new String(bytes(name), StandardCharsets.UTF_8);
+  }
+}
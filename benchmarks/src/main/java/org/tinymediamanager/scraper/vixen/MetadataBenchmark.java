@@ -0,0 +1,83 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
+import org.tinymediamanager.scraper.MediaMetadata;
+
+/**
+ * The extraction of getMetadata() on a recorded detail page. The network is stubbed: the page is parsed from memory and
+ * the performer photos are fixed URLs.
+ *
+ * @author YourName
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataBenchmark {
+  private VixenMovieMetadataProvider  provider;
+  private MovieSearchAndScrapeOptions options;
+  private String                      html;
+  private String                      htmlWithoutNextData;
+  private Document                    doc;
+  private List<String>                photoUrls;
+
+  @Setup
+  public void setup() {
+    provider = new VixenMovieMetadataProvider();
+    options = new MovieSearchAndScrapeOptions();
+    html = Fixtures.text(Fixtures.SCENE_PAGE);
+    doc = Jsoup.parse(html, Fixtures.SCENE_URL);
+
+    Document withoutNextData = Jsoup.parse(html, Fixtures.SCENE_URL);
+    withoutNextData.select("#__NEXT_DATA__").remove();
+    htmlWithoutNextData = withoutNextData.outerHtml();
+
+    photoUrls = new ArrayList<>();
+    for (String performerUrl : VixenMovieMetadataProvider.getPerformerUrls(provider.parseScene(doc))) {
+      photoUrls.add(performerUrl + "/profile/800.jpg");
+    }
+  }
+
+  /**
+   * everything getMetadata() does after the fetch: parse the page, extract the scene and map it onto the metadata
+   */
+  @Benchmark
+  public MediaMetadata getMetadata() {
+    VixenScene scene = provider.parseScene(Jsoup.parse(html, Fixtures.SCENE_URL));
+    return provider.buildMetadata(scene, Fixtures.SCENE_URL, options, photoUrls);
+  }
+
+  /**
+   * the extraction from the embedded page data of the already parsed page
+   */
+  @Benchmark
+  public VixenScene parseScene() {
+    return provider.parseScene(doc);
+  }
+
+  /**
+   * the extraction with the CSS selectors, for pages without embedded page data
+   */
+  @Benchmark
+  public VixenScene parseSceneWithSelectors() {
+    return provider.parseScene(Jsoup.parse(htmlWithoutNextData, Fixtures.SCENE_URL));
+  }
+}
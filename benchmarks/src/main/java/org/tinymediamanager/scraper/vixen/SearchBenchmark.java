@@ -0,0 +1,81 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.tinymediamanager.scraper.MediaSearchResult;
+
+/**
+ * The result loop and scoring of a search, on a recorded search page.
+ *
+ * @author YourName
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+  private static final String        SEARCH_TERM = "summer heat";
+
+  private VixenMovieMetadataProvider provider;
+  private String                     html;
+  private Document                   doc;
+  private List<String[]>             links;
+
+  @Setup
+  public void setup() {
+    provider = new VixenMovieMetadataProvider();
+    html = Fixtures.text(Fixtures.SEARCH_PAGE);
+    doc = Jsoup.parse(html, Fixtures.SEARCH_URL);
+
+    links = new ArrayList<>();
+    for (Element link : doc.select("a[href^='/videos/']")) {
+      links.add(new String[] { link.select("h3").text(), link.absUrl("href") });
+    }
+  }
+
+  /**
+   * parse the page and collect the scored results, as search() does after the fetch
+   */
+  @Benchmark
+  public Map<String, MediaSearchResult> parseAndScore() {
+    return provider.parseSearchResults(Jsoup.parse(html, Fixtures.SEARCH_URL), SEARCH_TERM);
+  }
+
+  /**
+   * collect the scored results of the already parsed page
+   */
+  @Benchmark
+  public Map<String, MediaSearchResult> score() {
+    return provider.parseSearchResults(doc, SEARCH_TERM);
+  }
+
+  /**
+   * the scoring alone, without selecting the links
+   */
+  @Benchmark
+  public void scorer(Blackhole blackhole) {
+    VixenParserUtils.SearchScorer scorer = new VixenParserUtils.SearchScorer(SEARCH_TERM);
+    for (String[] link : links) {
+      blackhole.consume(scorer.score(link[0], link[1]));
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The photo extraction of getActorPhotoUrl() on a recorded model page, and the srcset handling on its own.
+ *
+ * @author YourName
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SrcsetBenchmark {
+  private String   html;
+  private Document doc;
+  private String   srcset;
+
+  @Setup
+  public void setup() {
+    html = Fixtures.text(Fixtures.MODEL_PAGE);
+    doc = Jsoup.parse(html, Fixtures.MODEL_URL);
+    srcset = doc.selectFirst("aside img").attr("srcset");
+  }
+
+  /**
+   * parse the model page and extract the photo, as getActorPhotoUrl() does after the fetch
+   */
+  @Benchmark
+  public String actorPhotoFromPage() {
+    return VixenMovieMetadataProvider.extractActorPhotoUrl(Jsoup.parse(html, Fixtures.MODEL_URL), Fixtures.MODEL_URL, 2f);
+  }
+
+  /**
+   * extract the photo from the already parsed page
+   */
+  @Benchmark
+  public String actorPhoto() {
+    return VixenMovieMetadataProvider.extractActorPhotoUrl(doc, Fixtures.MODEL_URL, 2f);
+  }
+
+  /**
+   * parse the srcset and pick the 2x candidate
+   */
+  @Benchmark
+  public String srcset() {
+    return VixenParserUtils.densityUrl(VixenParserUtils.parseSrcset(srcset), 2f);
+  }
+}
@@ -0,0 +1,137 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
+import org.tinymediamanager.scraper.MediaSearchResult;
+
+/**
+ * Runs N search + getMetadata scrapes with C threads against the {@link ReplayServer} and reports throughput, latency
+ * percentiles, requests per scrape and the per-phase {@link ScraperMetrics}.
+ * <p>
+ * Usage: {@code mvn test-compile exec:java -Dexec.args="[options]"} with the options --scrapes N (200), --concurrency C
+ * (8), --latency ms (50), --jitter ms (50), --errors rate (0.0) and --throttle rate (0.0).
+ * <p>
+ * The scraper keeps its on-disk caches (pages, performer photos) between runs; delete the vixen folder in the cache
+ * folder for a cold run.
+ *
+ * @author YourName
+ */
+public class LoadTest {
+  private static final String[] QUERIES = { "summer heat", "paris nights", "midnight sun", "golden hour", "city lights", "night shift",
+      "perfect match", "the getaway" };
+
+  private LoadTest() {
+    // hide the public constructor for utility classes
+  }
+
+  public static void main(String[] args) throws Exception {
+    int scrapes = 200;
+    int concurrency = 8;
+    long latency = 50;
+    long jitter = 50;
+    double errorRate = 0;
+    double throttleRate = 0;
+
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      switch (args[i]) {
+        case "--scrapes":
+          scrapes = Integer.parseInt(args[i + 1]);
+          break;
+        case "--concurrency":
+          concurrency = Integer.parseInt(args[i + 1]);
+          break;
+        case "--latency":
+          latency = Long.parseLong(args[i + 1]);
+          break;
+        case "--jitter":
+          jitter = Long.parseLong(args[i + 1]);
+          break;
+        case "--errors":
+          errorRate = Double.parseDouble(args[i + 1]);
+          break;
+        case "--throttle":
+          throttleRate = Double.parseDouble(args[i + 1]);
+          break;
+        default:
+          throw new IllegalArgumentException("unknown option " + args[i]);
+      }
+    }
+
+    try (ReplayServer server = new ReplayServer(latency, jitter, errorRate, throttleRate)) {
+      VixenMovieMetadataProvider provider = new VixenMovieMetadataProvider(VixenSite.VIXEN, server.getBaseUrl());
+
+      ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+      List<Future<Long>> futures = new ArrayList<>(scrapes);
+      long start = System.nanoTime();
+      for (int i = 0; i < scrapes; i++) {
+        String query = QUERIES[i % QUERIES.length];
+        futures.add(executor.submit(() -> scrape(provider, query)));
+      }
+
+      List<Long> latencies = new ArrayList<>(scrapes);
+      int failed = 0;
+      for (Future<Long> future : futures) {
+        try {
+          latencies.add(future.get());
+        }
+        catch (Exception e) {
+          failed++;
+        }
+      }
+      long elapsed = System.nanoTime() - start;
+      executor.shutdown();
+
+      Collections.sort(latencies);
+      double seconds = elapsed / 1e9;
+      System.out.printf(Locale.ROOT, "scrapes:              %d (%d failed) with %d threads%n", scrapes, failed, concurrency);
+      System.out.printf(Locale.ROOT, "server:               latency %d ms, jitter %d ms, errors %.1f%%, throttle %.1f%%%n", latency, jitter,
+          errorRate * 100, throttleRate * 100);
+      System.out.printf(Locale.ROOT, "throughput:           %.1f scrapes/s (%.1f s)%n", latencies.size() / seconds, seconds);
+      System.out.printf(Locale.ROOT, "latency p50/p95/p99:  %d / %d / %d ms%n", percentile(latencies, 50), percentile(latencies, 95),
+          percentile(latencies, 99));
+      System.out.printf(Locale.ROOT, "requests:             %d (%d failed), %.2f per scrape%n", server.getRequests(), server.getErrors(),
+          (double) server.getRequests() / scrapes);
+      for (String phase : ScraperMetrics.getInstance().getPhases()) {
+        System.out.println("  " + phase);
+      }
+    }
+  }
+
+  /**
+   * one search and one getMetadata of the best result
+   *
+   * @return the duration in ms
+   */
+  private static long scrape(VixenMovieMetadataProvider provider, String query) throws Exception {
+    long start = System.nanoTime();
+
+    MovieSearchAndScrapeOptions options = new MovieSearchAndScrapeOptions();
+    options.setSearchQuery(query);
+    SortedSet<MediaSearchResult> results = provider.search(options);
+    if (results.isEmpty()) {
+      throw new IllegalStateException("no search result for " + query);
+    }
+
+    options.setSearchResult(results.first());
+    provider.getMetadata(options);
+
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+  }
+
+  private static long percentile(List<Long> sorted, int percentile) {
+    if (sorted.isEmpty()) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+    return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+  }
+}
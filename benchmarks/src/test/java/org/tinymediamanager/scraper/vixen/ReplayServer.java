@@ -0,0 +1,139 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local HTTP server which replays the recorded pages of the site: /search serves the search page, /videos/* the scene
+ * page and /models/* the model page. Every response can be delayed (latency plus random jitter) and a share of the
+ * requests can be answered with 503 or 429 (with Retry-After), to load test the scraper without network access.
+ *
+ * @author YourName
+ */
+class ReplayServer implements AutoCloseable {
+  private final HttpServer      server;
+  private final ExecutorService executor;
+  private final byte[]          searchPage;
+  private final byte[]          scenePage;
+  private final byte[]          modelPage;
+  private final long            latencyMillis;
+  private final long            jitterMillis;
+  private final double          errorRate;
+  private final double          throttleRate;
+
+  private final AtomicLong      requests = new AtomicLong();
+  private final AtomicLong      errors   = new AtomicLong();
+
+  /**
+   * @param latencyMillis
+   *          the minimum delay of every response
+   * @param jitterMillis
+   *          the maximum random delay added to the latency
+   * @param errorRate
+   *          the share of requests (0..1) answered with 503
+   * @param throttleRate
+   *          the share of requests (0..1) answered with 429 and Retry-After: 1
+   */
+  ReplayServer(long latencyMillis, long jitterMillis, double errorRate, double throttleRate) throws IOException {
+    this.latencyMillis = latencyMillis;
+    this.jitterMillis = jitterMillis;
+    this.errorRate = errorRate;
+    this.throttleRate = throttleRate;
+
+    searchPage = Fixtures.bytes(Fixtures.SEARCH_PAGE);
+    scenePage = Fixtures.bytes(Fixtures.SCENE_PAGE);
+    modelPage = Fixtures.bytes(Fixtures.MODEL_PAGE);
+
+    executor = Executors.newCachedThreadPool(r -> {
+      Thread thread = new Thread(r, "replay-server");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * the base URL to point the provider at
+   */
+  String getBaseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  long getRequests() {
+    return requests.get();
+  }
+
+  long getErrors() {
+    return errors.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      requests.incrementAndGet();
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+
+      long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+      if (delay > 0) {
+        try {
+          Thread.sleep(delay);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+
+      double roll = random.nextDouble();
+      if (roll < errorRate) {
+        errors.incrementAndGet();
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+      if (roll < errorRate + throttleRate) {
+        errors.incrementAndGet();
+        exchange.getResponseHeaders().add("Retry-After", "1");
+        exchange.sendResponseHeaders(429, -1);
+        return;
+      }
+
+      String path = exchange.getRequestURI().getPath();
+      byte[] body;
+      if (path.startsWith("/search")) {
+        body = searchPage;
+      }
+      else if (path.startsWith("/videos/")) {
+        body = scenePage;
+      }
+      else if (path.startsWith("/models/")) {
+        body = modelPage;
+      }
+      else {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(body);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,229 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+
+/**
+ * A two tier cache for resolved performer photos: performer profile URL -> high-res thumb URL. The first tier is a
+ * small in-memory LRU map, the second tier is one tiny file per performer in the tMM cache folder, so the cache
+ * survives restarts and is shared by all scrapes.
+ * <p>
+ * Every entry expires after the TTL of the looking up provider, so the sites of the network can use different TTLs on
+ * the shared entries. Performers without a photo are cached as well (with a shorter TTL), so their profile page is not
+ * downloaded again for every scene.
+ *
+ * @author YourName
+ */
+class ActorPhotoCache {
+  private static final Logger          LOGGER          = LoggerFactory.getLogger(ActorPhotoCache.class);
+  private static final String         FORMAT          = "2";
+  private static final long            NEGATIVE_TTL    = TimeUnit.DAYS.toMillis(1);
+  private static final int             MEMORY_CAPACITY = 1024;
+  private static final ActorPhotoCache INSTANCE        = new ActorPhotoCache(Paths.get(Globals.CACHE_FOLDER, "vixen", "actors"),
+      MEMORY_CAPACITY);
+
+  private final Path                   folder;
+  private final Map<String, Entry>     memory;
+
+  ActorPhotoCache(Path folder, int memoryCapacity) {
+    this.folder = folder;
+    this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > memoryCapacity;
+      }
+    };
+  }
+
+  /**
+   * the cache shared by all provider instances
+   */
+  static ActorPhotoCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Look up the photo of the given performer
+   *
+   * @param performerUrl
+   *          the performer profile URL
+   * @param ttlMillis
+   *          the TTL of the cached photos in milliseconds
+   * @return the cached photo URL, an empty string if the performer is known to have no photo or null if there is no
+   *         valid entry
+   */
+  String get(String performerUrl, long ttlMillis) {
+    long now = System.currentTimeMillis();
+
+    Entry entry;
+    synchronized (memory) {
+      entry = memory.get(performerUrl);
+    }
+
+    if (entry == null) {
+      entry = readEntry(performerUrl);
+      if (entry == null) {
+        return null;
+      }
+      synchronized (memory) {
+        memory.put(performerUrl, entry);
+      }
+    }
+
+    // another provider may use a longer TTL, so the expired entry is kept until it is replaced
+    if (entry.storedAt + (entry.photoUrl.isEmpty() ? NEGATIVE_TTL : ttlMillis) < now) {
+      return null;
+    }
+
+    return entry.photoUrl;
+  }
+
+  /**
+   * Store the photo of the given performer
+   *
+   * @param performerUrl
+   *          the performer profile URL
+   * @param photoUrl
+   *          the resolved photo URL or an empty string if the performer has no photo
+   */
+  void put(String performerUrl, String photoUrl) {
+    Entry entry = new Entry(photoUrl == null ? "" : photoUrl, System.currentTimeMillis());
+
+    synchronized (memory) {
+      memory.put(performerUrl, entry);
+    }
+    writeEntry(performerUrl, entry);
+  }
+
+  /**
+   * Write the entries of the memory tier to the warm cache snapshot, least recently used first
+   */
+  void writeSnapshot(DataOutputStream out) throws IOException {
+    List<String> keys;
+    List<Entry> entries;
+    synchronized (memory) {
+      keys = new ArrayList<>(memory.keySet());
+      entries = new ArrayList<>(memory.values());
+    }
+
+    out.writeInt(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      out.writeUTF(keys.get(i));
+      out.writeUTF(entries.get(i).photoUrl);
+      out.writeLong(entries.get(i).storedAt);
+    }
+  }
+
+  /**
+   * Restore the memory tier from the warm cache snapshot. The entries are skipped if a performer was cached after the
+   * snapshot was written, since the snapshot may then hold an outdated photo.
+   *
+   * @param in
+   *          the snapshot, positioned at the entries written by {@link #writeSnapshot(DataOutputStream)}
+   * @param writtenAt
+   *          the time the snapshot was written
+   */
+  void readSnapshot(DataInputStream in, long writtenAt) throws IOException {
+    int size = in.readInt();
+    List<String> keys = new ArrayList<>(size);
+    List<Entry> entries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      keys.add(in.readUTF());
+      entries.add(new Entry(in.readUTF(), in.readLong()));
+    }
+
+    if (!WarmCache.unchangedSince(folder, writtenAt)) {
+      return;
+    }
+
+    synchronized (memory) {
+      for (int i = 0; i < size; i++) {
+        memory.putIfAbsent(keys.get(i), entries.get(i));
+      }
+    }
+  }
+
+  private Entry readEntry(String performerUrl) {
+    Path file = folder.resolve(hash(performerUrl));
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try {
+      // line 1: format, line 2: storage time, line 3: performer URL (to detect hash collisions), line 4: photo URL
+      String[] lines = new String(Files.readAllBytes(file), StandardCharsets.UTF_8).split("\n", -1);
+      if (lines.length < 4 || !lines[0].equals(FORMAT) || !lines[2].equals(performerUrl)) {
+        return null;
+      }
+      return new Entry(lines[3], Long.parseLong(lines[1]));
+    }
+    catch (IOException | NumberFormatException e) {
+      LOGGER.debug("Could not read cached actor photo for {}: {}", performerUrl, e.getMessage());
+      return null;
+    }
+  }
+
+  private void writeEntry(String performerUrl, Entry entry) {
+    try {
+      Files.createDirectories(folder);
+      Path tmp = Files.createTempFile(folder, "actor", ".tmp");
+      try {
+        String content = FORMAT + "\n" + entry.storedAt + "\n" + performerUrl + "\n" + entry.photoUrl;
+        Files.write(tmp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, folder.resolve(hash(performerUrl)), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not cache actor photo for {}: {}", performerUrl, e.getMessage());
+    }
+  }
+
+  static String hash(String value) {
+    return hash(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String hash(byte[] value) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(value);
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return sb.toString();
+    }
+    catch (NoSuchAlgorithmException e) {
+      // SHA-1 is always available
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Entry {
+    private final String photoUrl;
+    private final long   storedAt;
+
+    private Entry(String photoUrl, long storedAt) {
+      this.photoUrl = photoUrl;
+      this.storedAt = storedAt;
+    }
+  }
+}
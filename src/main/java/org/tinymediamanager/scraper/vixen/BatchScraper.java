@@ -0,0 +1,281 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
+import org.tinymediamanager.scraper.MediaMetadata;
+import org.tinymediamanager.scraper.MediaSearchResult;
+import org.tinymediamanager.scraper.exceptions.ScrapeException;
+
+/**
+ * Scrapes many movies at once through a pipeline of stages connected by bounded queues:
+ * <ol>
+ * <li>resolve - find the detail page URL (from the search result or by searching)</li>
+ * <li>fetch - download the detail page</li>
+ * <li>parse - extract the scene from the detail page</li>
+ * <li>performers - resolve the performer photos and build the metadata</li>
+ * </ol>
+ * Every stage runs on its own worker threads, so the I/O of one movie overlaps with the parsing of another. Concurrent
+ * fetches of the same detail page and all fetches of the same performer photo are done only once per batch. Results are
+ * handed to the callback as soon as a movie is done; a movie failing in any stage (with an exception or an error such
+ * as a stack overflow while parsing) is handed to the callback as error.
+ * <p>
+ * The pipeline always fetches the whole scene: the time budget, the incremental refresh and the lazy actor photos of
+ * single scrapes do not apply to a batch.
+ *
+ * @author YourName
+ */
+class BatchScraper {
+  private static final Logger                                     LOGGER      = LoggerFactory.getLogger(BatchScraper.class);
+
+  private final VixenMovieMetadataProvider                        provider;
+  private final ExecutorService                                   actorExecutor;
+  private final int                                               concurrency;
+  private final Map<String, CompletableFuture<Document>>          pages       = new ConcurrentHashMap<>();
+  private final Map<String, CompletableFuture<String>>            photos      = new ConcurrentHashMap<>();
+
+  BatchScraper(VixenMovieMetadataProvider provider, ExecutorService actorExecutor, int concurrency) {
+    this.provider = provider;
+    this.actorExecutor = actorExecutor;
+    this.concurrency = Math.max(1, concurrency);
+  }
+
+  /**
+   * Scrape all given movies; blocks until every movie has been passed to the callback
+   *
+   * @param optionsList
+   *          the scrape options of the movies
+   * @param callback
+   *          receives the result of every movie as soon as it is available
+   * @throws InterruptedException
+   *           if the calling thread is interrupted while waiting for the batch
+   */
+  void scrape(List<MovieSearchAndScrapeOptions> optionsList, VixenMovieMetadataProvider.BatchCallback callback) throws InterruptedException {
+    if (optionsList.isEmpty()) {
+      return;
+    }
+
+    int capacity = concurrency * 2;
+    BlockingQueue<Job> toResolve = new ArrayBlockingQueue<>(optionsList.size());
+    BlockingQueue<Job> toFetch = new ArrayBlockingQueue<>(capacity);
+    BlockingQueue<Job> toParse = new ArrayBlockingQueue<>(capacity);
+    BlockingQueue<Job> toFinish = new ArrayBlockingQueue<>(capacity);
+    CountDownLatch done = new CountDownLatch(optionsList.size());
+
+    for (MovieSearchAndScrapeOptions options : optionsList) {
+      toResolve.add(new Job(options));
+    }
+
+    List<Thread> workers = new ArrayList<>();
+    workers.addAll(startStage("resolve", concurrency, toResolve, toFetch, this::resolve));
+    workers.addAll(startStage("fetch", concurrency, toFetch, toParse, this::fetch));
+    // parsing is CPU bound, fewer threads are enough
+    workers.addAll(startStage("parse", Math.max(1, concurrency / 2), toParse, toFinish, this::parse));
+    workers.addAll(startStage("performers", concurrency, toFinish, null, job -> {
+      try {
+        try {
+          finish(job);
+        }
+        catch (Throwable e) {
+          LOGGER.debug("Batch stage 'performers' failed for {}: {}", job.options.getSearchQuery(), e.getMessage());
+          job.error = toScrapeException(e);
+        }
+
+        // every job is counted down exactly once, also if building its metadata failed
+        if (job.error != null) {
+          callback.onError(job.options, job.error);
+        }
+        else {
+          callback.onResult(job.options, job.metadata);
+        }
+      }
+      catch (Throwable e) {
+        LOGGER.warn("Batch callback failed: {}", e.getMessage());
+      }
+      finally {
+        done.countDown();
+      }
+    }));
+
+    try {
+      done.await();
+    }
+    finally {
+      for (Thread worker : workers) {
+        worker.interrupt();
+      }
+    }
+  }
+
+  private void resolve(Job job) throws Exception {
+    MediaSearchResult searchResult = job.options.getSearchResult();
+    if (searchResult != null && searchResult.getUrl() != null && !searchResult.getUrl().isEmpty()) {
+      job.url = searchResult.getUrl();
+      return;
+    }
+
+    SortedSet<MediaSearchResult> results = provider.search(job.options);
+    if (results.isEmpty()) {
+      throw new ScrapeException("No search result for " + job.options.getSearchQuery());
+    }
+    job.options.setSearchResult(results.first());
+    job.url = results.first().getUrl();
+  }
+
+  private void fetch(Job job) throws Exception {
+    CompletableFuture<Document> page = new CompletableFuture<>();
+    CompletableFuture<Document> existing = pages.putIfAbsent(job.url, page);
+    if (existing != null) {
+      // another movie of this batch already fetches this page
+      job.document = join(existing);
+      return;
+    }
+
+    try {
+      page.complete(provider.fetchDetailPage(job.url));
+    }
+    catch (Throwable e) {
+      // also on errors, the movies waiting for the page must not wait forever
+      page.completeExceptionally(e);
+    }
+    finally {
+      // movies already waiting keep their reference; the map must not keep every DOM of the batch alive
+      pages.remove(job.url, page);
+    }
+    job.document = join(page);
+  }
+
+  private void parse(Job job) {
+    job.scene = provider.parseScene(job.document);
+    // the document is not needed any more, let it be collected early
+    job.document = null;
+  }
+
+  private void finish(Job job) {
+    if (job.error != null) {
+      return;
+    }
+
+    List<CompletableFuture<String>> futures = new ArrayList<>();
+    for (String performerUrl : VixenMovieMetadataProvider.getPerformerUrls(job.scene)) {
+      if (performerUrl.isEmpty()) {
+        futures.add(CompletableFuture.completedFuture(""));
+      }
+      else {
+        futures.add(photos.computeIfAbsent(performerUrl, url -> CompletableFuture.supplyAsync(() -> provider.getActorPhotoUrl(url), actorExecutor)));
+      }
+    }
+
+    List<String> photoUrls = new ArrayList<>(futures.size());
+    for (CompletableFuture<String> future : futures) {
+      try {
+        photoUrls.add(future.join());
+      }
+      catch (CompletionException e) {
+        photoUrls.add("");
+      }
+    }
+
+    job.metadata = provider.buildMetadata(job.scene, job.url, job.options, photoUrls);
+  }
+
+  private static Document join(CompletableFuture<Document> future) throws Exception {
+    try {
+      return future.join();
+    }
+    catch (CompletionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  private static ScrapeException toScrapeException(Throwable e) {
+    return e instanceof ScrapeException ? (ScrapeException) e : new ScrapeException(e);
+  }
+
+  /**
+   * Start the worker threads of a stage. Failed jobs skip the remaining work of the pipeline but still flow through
+   * every stage, so the last stage sees every job exactly once. Whatever a job throws is recorded as its error, so no
+   * job can take a worker down with it.
+   */
+  private List<Thread> startStage(String name, int threads, BlockingQueue<Job> input, BlockingQueue<Job> output, StageTask task) {
+    List<Thread> workers = new ArrayList<>(threads);
+    for (int i = 0; i < threads; i++) {
+      Thread worker = new Thread(() -> {
+        try {
+          while (!Thread.currentThread().isInterrupted()) {
+            Job job = input.take();
+            if (job.error == null) {
+              try {
+                task.run(job);
+              }
+              catch (InterruptedException e) {
+                throw e;
+              }
+              catch (Throwable e) {
+                LOGGER.debug("Batch stage '{}' failed for {}: {}", name, job.options.getSearchQuery(), e.getMessage());
+                job.error = toScrapeException(e);
+              }
+            }
+            else if (output == null) {
+              task.run(job);
+            }
+
+            if (output != null) {
+              output.put(job);
+            }
+          }
+        }
+        catch (InterruptedException e) {
+          // batch finished
+        }
+        catch (Exception e) {
+          LOGGER.warn("Batch stage '{}' stopped: {}", name, e.getMessage());
+        }
+      }, "vixen-batch-" + name + "-" + (i + 1));
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+    return workers;
+  }
+
+  @FunctionalInterface
+  private interface StageTask {
+    void run(Job job) throws Exception;
+  }
+
+  /**
+   * the state of one movie while it passes through the pipeline
+   */
+  private static class Job {
+    private final MovieSearchAndScrapeOptions options;
+    private String                            url;
+    private Document                          document;
+    private VixenScene                        scene;
+    private MediaMetadata                     metadata;
+    private ScrapeException                   error;
+
+    private Job(MovieSearchAndScrapeOptions options) {
+      this.options = options;
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Blacked Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class BlackedMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public BlackedMovieMetadataProvider() {
+    super(VixenSite.BLACKED);
+  }
+}
@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Blacked Raw Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class BlackedRawMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public BlackedRawMovieMetadataProvider() {
+    super(VixenSite.BLACKED_RAW);
+  }
+}
@@ -0,0 +1,615 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+
+/**
+ * A local index of the scene catalog of the site (id, title, URL, release date and performers), so searches can be
+ * answered without a request to the site. The index is populated from the sitemap of the site (all scenes) and the
+ * video listing pages (performers), and kept as a memory-mapped {@link SceneTable} in the tMM cache folder: it opens
+ * without being deserialized and the scenes do not occupy the heap, however large the catalog grows.
+ * <p>
+ * Searches look up the words of the term in a trigram index over the search keys of the table (row numbers only), which
+ * is built on the heap by the first search after another table was mapped; only the candidates are decoded and scored
+ * with the same {@link VixenParserUtils.SearchScorer} as live search results. Lookups by release date are a binary
+ * search.
+ *
+ * @author YourName
+ */
+class CatalogIndex {
+  private static final Logger                      LOGGER       = LoggerFactory.getLogger(CatalogIndex.class);
+  private static final int                         MAX_PAGES    = 1000;
+  private static final int                         MAX_SITEMAPS = 100;
+  // a failed crawl is not repeated before this time has passed, however many searches find the index stale
+  private static final long                        RETRY_AFTER  = TimeUnit.HOURS.toMillis(1);
+  private static final String                      TABLE_PREFIX = "catalog-";
+  private static final String                      TABLE_SUFFIX = ".table";
+  private static final Map<VixenSite, CatalogIndex> SITES        = new EnumMap<>(VixenSite.class);
+
+  private final Path                               folder;
+  private final AtomicBoolean                      refreshing   = new AtomicBoolean();
+  private volatile long                            failedAt     = 0;
+  private volatile SceneTable                      table;
+  private volatile SearchIndex                     searchIndex;
+
+  CatalogIndex(Path folder) {
+    this.folder = folder;
+  }
+
+  /**
+   * the index of the given site, shared by all provider instances
+   */
+  static CatalogIndex forSite(VixenSite site) {
+    synchronized (SITES) {
+      if (SITES.isEmpty()) {
+        deleteLegacyFiles(Paths.get(Globals.CACHE_FOLDER, "vixen"));
+      }
+      return SITES.computeIfAbsent(site, s -> new CatalogIndex(Paths.get(Globals.CACHE_FOLDER, "vixen", "catalog", s.getId())));
+    }
+  }
+
+  /**
+   * @return the number of indexed scenes
+   */
+  int size() {
+    return table().size();
+  }
+
+  /**
+   * @param maxAgeMillis
+   *          the maximum age of the last crawl
+   * @return true if the index has never been crawled or the last crawl is older than the given age
+   */
+  boolean isStale(long maxAgeMillis) {
+    SceneTable current = table();
+    return current.size() == 0 || current.getLastCrawl() + maxAgeMillis < System.currentTimeMillis();
+  }
+
+  /**
+   * Find all scenes which score for the given (normalized) search term
+   *
+   * @param searchTerm
+   *          the normalized search term
+   * @return the matching entries with their scores, best first; empty if nothing matched
+   */
+  List<ScoredEntry> search(String searchTerm) {
+    SceneTable current = table();
+    SearchIndex index = searchIndex(current);
+    String term = searchTerm.toLowerCase(Locale.ROOT);
+
+    // the whole term, words longer than two characters anywhere, shorter words only as whole words
+    List<String> needles = new ArrayList<>();
+    if (term.length() >= 3) {
+      needles.add(term);
+    }
+    for (String word : term.split(" ")) {
+      if (!word.isEmpty()) {
+        needles.add(word.length() > 2 ? word : " " + word + " ");
+      }
+    }
+
+    // the trigrams only narrow down the rows, the search key of every candidate is checked
+    BitSet rows = new BitSet(current.size());
+    for (String needle : needles) {
+      byte[] bytes = needle.getBytes(StandardCharsets.UTF_8);
+      for (int row : index.candidates(needle)) {
+        if (!rows.get(row) && current.searchKeyContains(row, bytes)) {
+          rows.set(row);
+        }
+      }
+    }
+
+    VixenParserUtils.SearchScorer scorer = new VixenParserUtils.SearchScorer(searchTerm);
+    List<ScoredEntry> results = new ArrayList<>();
+    for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+      Entry entry = current.get(row);
+      float score = scorer.score(entry.title, entry.url);
+      if (score > 0) {
+        results.add(new ScoredEntry(entry, score));
+      }
+    }
+    results.sort((o1, o2) -> Float.compare(o2.score, o1.score));
+    return results;
+  }
+
+  /**
+   * Find all scenes released on the given day
+   *
+   * @param releaseDate
+   *          the release date
+   * @return the scenes; empty if there are none in the index
+   */
+  List<Entry> findByReleaseDate(LocalDate releaseDate) {
+    SceneTable current = table();
+    List<Entry> result = new ArrayList<>();
+    for (Integer row : current.findByReleaseDate(releaseDate)) {
+      result.add(current.get(row));
+    }
+    return result;
+  }
+
+  /**
+   * Sync the index with the site in the background: all scenes from the sitemap, then the performers from the listing
+   * pages, newest scenes first. Once the listing pages have been crawled completely, later crawls stop at the first
+   * page which does not change anything. Only one sync runs at a time, and after a failed sync the next one is only
+   * started after {@link #RETRY_AFTER}.
+   *
+   * @param baseUrl
+   *          the base URL of the site
+   */
+  void refreshInBackground(String baseUrl) {
+    if (failedAt + RETRY_AFTER > System.currentTimeMillis() || !refreshing.compareAndSet(false, true)) {
+      return;
+    }
+
+    Thread thread = new Thread(() -> {
+      try {
+        refresh(baseUrl);
+      }
+      finally {
+        refreshing.set(false);
+      }
+    }, "vixen-catalog-crawler");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void refresh(String baseUrl) {
+    SceneTable current = table();
+    Known known = new Known(current);
+    // only the new and changed scenes are kept in memory during the sync
+    Map<String, Entry> updates = new LinkedHashMap<>();
+    boolean complete = current.isComplete();
+
+    int fromSitemap = 0;
+    try {
+      fromSitemap = readSitemap(baseUrl, known, updates);
+    }
+    catch (Exception e) {
+      LOGGER.debug("Could not read the sitemap: {}", e.getMessage());
+    }
+
+    try {
+      for (int page = 1; page <= MAX_PAGES; page++) {
+        Document doc = VixenHttpClient.getInstance().getDocument(baseUrl + "/videos?page=" + page);
+        List<Entry> pageEntries = parseListing(doc, baseUrl);
+        if (pageEntries.isEmpty()) {
+          complete = true;
+          break;
+        }
+
+        if (merge(pageEntries, known, updates) == 0 && complete) {
+          // everything from here on is already known
+          break;
+        }
+      }
+    }
+    catch (Exception e) {
+      LOGGER.warn("Could not crawl the catalog: {}", e.getMessage());
+      failedAt = System.currentTimeMillis();
+      if (updates.isEmpty()) {
+        return;
+      }
+    }
+
+    try {
+      save(current, updates, complete);
+      LOGGER.debug("Catalog sync finished - {} scenes from the sitemap, {} new or changed scenes, {} in total", fromSitemap, updates.size(),
+          size());
+    }
+    catch (IOException e) {
+      LOGGER.warn("Could not save the catalog index: {}", e.getMessage());
+      failedAt = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * Read the scenes of the sitemap (following a sitemap index one level deep); only scenes which are not in the index
+   * yet are added
+   *
+   * @return the number of scenes found in the sitemap
+   */
+  private int readSitemap(String baseUrl, Known known, Map<String, Entry> updates) throws IOException {
+    int[] scenes = { 0 };
+    List<String> nested = new ArrayList<>();
+    SitemapReader.Handler handler = new SitemapReader.Handler() {
+      @Override
+      public void onScene(Entry entry) {
+        scenes[0]++;
+        if (!updates.containsKey(entry.id) && known.get(entry.id) == null) {
+          updates.put(entry.id, entry);
+        }
+      }
+
+      @Override
+      public void onSitemap(String url) {
+        if (nested.size() < MAX_SITEMAPS) {
+          nested.add(url);
+        }
+      }
+    };
+
+    VixenHttpClient client = VixenHttpClient.getInstance();
+    client.read(baseUrl + "/sitemap.xml", in -> {
+      SitemapReader.parse(in, baseUrl, handler);
+      return null;
+    });
+    for (String url : nested) {
+      client.read(url, in -> {
+        SitemapReader.parse(in, baseUrl, handler);
+        return null;
+      });
+    }
+    return scenes[0];
+  }
+
+  /**
+   * Add the given scenes to the updates if they are new or differ from the indexed ones. A release date or performers
+   * missing in a scene (e.g. parsed from the rendered cards) are taken from the indexed scene.
+   *
+   * @return the number of new or changed scenes
+   */
+  private static int merge(List<Entry> entries, Known known, Map<String, Entry> updates) {
+    int changed = 0;
+    for (Entry entry : entries) {
+      Entry existing = updates.get(entry.id);
+      if (existing == null) {
+        existing = known.get(entry.id);
+      }
+      if (existing != null) {
+        entry = entry.completedBy(existing);
+      }
+      if (existing == null || !existing.sameAs(entry)) {
+        updates.put(entry.id, entry);
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Parse the scenes of a listing page, preferring the embedded __NEXT_DATA__ blob over the rendered cards
+   */
+  static List<Entry> parseListing(Document doc, String baseUrl) {
+    List<Entry> result = NextDataExtractor.extractVideos(doc, baseUrl);
+    if (!result.isEmpty()) {
+      return result;
+    }
+
+    Map<String, Entry> byUrl = new HashMap<>();
+    for (Element videoItem : doc.select("a[href^='/videos/']")) {
+      String url = videoItem.attr("href");
+      if (!url.startsWith("http")) {
+        url = baseUrl + url;
+      }
+      String title = videoItem.select("h3").text();
+      if (title.isEmpty()) {
+        title = videoItem.attr("title");
+      }
+      if (title.isEmpty()) {
+        title = VixenParserUtils.titleFromUrl(url);
+      }
+      if (!title.isEmpty() && !byUrl.containsKey(url)) {
+        byUrl.put(url, new Entry(url.substring(url.lastIndexOf('/') + 1), title, url, null, Collections.emptyList()));
+      }
+    }
+    return new ArrayList<>(byUrl.values());
+  }
+
+  /**
+   * the current table, mapped from the newest table file on first use
+   */
+  private SceneTable table() {
+    SceneTable current = table;
+    if (current != null) {
+      return current;
+    }
+
+    synchronized (this) {
+      if (table == null) {
+        table = openNewest();
+      }
+      return table;
+    }
+  }
+
+  /**
+   * the search index of the given table, built on the first search after the table was mapped
+   */
+  private SearchIndex searchIndex(SceneTable current) {
+    SearchIndex index = searchIndex;
+    if (index != null && index.table == current) {
+      return index;
+    }
+
+    synchronized (this) {
+      if (searchIndex == null || searchIndex.table != current) {
+        long start = System.nanoTime();
+        searchIndex = new SearchIndex(current);
+        LOGGER.debug("Built the search index of {} scenes in {} ms", current.size(), (System.nanoTime() - start) / 1_000_000);
+      }
+      return searchIndex;
+    }
+  }
+
+  private SceneTable openNewest() {
+    List<Path> files = listTables();
+    for (int i = files.size() - 1; i >= 0; i--) {
+      try {
+        SceneTable opened = SceneTable.open(files.get(i));
+        LOGGER.debug("Opened the catalog index with {} scenes", opened.size());
+        deleteTablesExcept(files.get(i));
+        return opened;
+      }
+      catch (IOException e) {
+        LOGGER.debug("Could not open the catalog index {}: {}", files.get(i), e.getMessage());
+      }
+    }
+    return SceneTable.EMPTY;
+  }
+
+  /**
+   * Write a new table with the scenes of the current table and the updates and switch to it. Every table gets a new
+   * file, as a mapped file cannot be replaced on every platform; the old files are deleted once they are not mapped any
+   * more.
+   */
+  private void save(SceneTable current, Map<String, Entry> updates, boolean complete) throws IOException {
+    Files.createDirectories(folder);
+    Path tmp = Files.createTempFile(folder, "catalog", ".tmp");
+    try {
+      try (SceneTable.Writer writer = new SceneTable.Writer(tmp)) {
+        for (int row = 0; row < current.size(); row++) {
+          Entry entry = current.get(row);
+          if (!updates.containsKey(entry.id)) {
+            writer.add(entry);
+          }
+        }
+        for (Entry entry : updates.values()) {
+          writer.add(entry);
+        }
+        writer.finish(System.currentTimeMillis(), complete);
+      }
+
+      Path file = folder.resolve(TABLE_PREFIX + System.currentTimeMillis() + TABLE_SUFFIX);
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+      table = SceneTable.open(file);
+      deleteTablesExcept(file);
+    }
+    finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /**
+   * all table files, oldest first
+   */
+  private List<Path> listTables() {
+    List<Path> files = new ArrayList<>();
+    if (!Files.isDirectory(folder)) {
+      return files;
+    }
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, TABLE_PREFIX + "*" + TABLE_SUFFIX)) {
+      for (Path file : stream) {
+        files.add(file);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not list the catalog index files: {}", e.getMessage());
+    }
+    // the names contain the creation time
+    files.sort((o1, o2) -> Long.compare(tableTime(o1), tableTime(o2)));
+    return files;
+  }
+
+  private void deleteTablesExcept(Path keep) {
+    List<Path> obsolete = listTables();
+    obsolete.remove(keep);
+    delete(obsolete);
+  }
+
+  /**
+   * delete the index files of older versions, which kept a single catalog for Vixen only
+   */
+  private static void deleteLegacyFiles(Path vixenFolder) {
+    List<Path> legacy = new CatalogIndex(vixenFolder).listTables();
+    legacy.add(vixenFolder.resolve("catalog.bin"));
+    delete(legacy);
+  }
+
+  private static void delete(List<Path> files) {
+    for (Path file : files) {
+      try {
+        Files.deleteIfExists(file);
+      }
+      catch (IOException e) {
+        // still mapped on some platforms, deleted next time
+        LOGGER.trace("Could not delete {}: {}", file, e.getMessage());
+      }
+    }
+  }
+
+  private static long tableTime(Path file) {
+    String name = file.getFileName().toString();
+    try {
+      return Long.parseLong(name.substring(TABLE_PREFIX.length(), name.length() - TABLE_SUFFIX.length()));
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * looks up the scenes of a table during a sync
+   */
+  private static class Known {
+    private final SceneTable table;
+
+    private Known(SceneTable table) {
+      this.table = table;
+    }
+
+    private Entry get(String id) {
+      int row = table.find(id);
+      return row < 0 ? null : table.get(row);
+    }
+  }
+
+  /**
+   * an inverted index from the trigrams of the search keys of a table to its rows
+   */
+  private static class SearchIndex {
+    private static final int[]       NONE     = new int[0];
+
+    private final SceneTable         table;
+    private final Map<String, int[]> trigrams = new HashMap<>();
+
+    private SearchIndex(SceneTable table) {
+      this.table = table;
+      Map<String, Postings> postings = new HashMap<>();
+      for (int row = 0; row < table.size(); row++) {
+        String key = table.searchKey(row);
+        for (int i = 0; i + 3 <= key.length(); i++) {
+          postings.computeIfAbsent(key.substring(i, i + 3), k -> new Postings()).add(row);
+        }
+      }
+      postings.forEach((trigram, rows) -> trigrams.put(trigram, rows.toArray()));
+    }
+
+    /**
+     * the rows (ascending) whose search key contains every trigram of the given needle of at least three characters
+     */
+    private int[] candidates(String needle) {
+      int[] rows = null;
+      for (int i = 0; i + 3 <= needle.length(); i++) {
+        int[] posting = trigrams.get(needle.substring(i, i + 3));
+        if (posting == null) {
+          return NONE;
+        }
+        rows = rows == null ? posting : intersect(rows, posting);
+        if (rows.length == 0) {
+          return NONE;
+        }
+      }
+      return rows == null ? NONE : rows;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+      int[] result = new int[Math.min(a.length, b.length)];
+      int size = 0;
+      int i = 0;
+      int j = 0;
+      while (i < a.length && j < b.length) {
+        if (a[i] < b[j]) {
+          i++;
+        }
+        else if (a[i] > b[j]) {
+          j++;
+        }
+        else {
+          result[size++] = a[i];
+          i++;
+          j++;
+        }
+      }
+      return Arrays.copyOf(result, size);
+    }
+  }
+
+  /**
+   * the rows of a trigram while the search index is built; rows are added in ascending order
+   */
+  private static class Postings {
+    private int[] rows = new int[4];
+    private int   size = 0;
+
+    private void add(int row) {
+      if (size > 0 && rows[size - 1] == row) {
+        return;
+      }
+      if (size == rows.length) {
+        rows = Arrays.copyOf(rows, size * 2);
+      }
+      rows[size++] = row;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(rows, size);
+    }
+  }
+
+  /**
+   * a scene of the catalog
+   */
+  static class Entry {
+    final String       id;
+    final String       title;
+    final String       url;
+    final LocalDate    releaseDate;
+    final List<String> performers;
+
+    Entry(String id, String title, String url, LocalDate releaseDate, List<String> performers) {
+      this.id = id;
+      this.title = title;
+      this.url = url;
+      this.releaseDate = releaseDate;
+      this.performers = performers;
+    }
+
+    /**
+     * this scene with the release date and performers of the given scene where it has none
+     */
+    Entry completedBy(Entry other) {
+      if ((releaseDate != null || other.releaseDate == null) && (!performers.isEmpty() || other.performers.isEmpty())) {
+        return this;
+      }
+      return new Entry(id, title, url, releaseDate != null ? releaseDate : other.releaseDate, performers.isEmpty() ? other.performers : performers);
+    }
+
+    /**
+     * true if the given entry carries the same values
+     */
+    boolean sameAs(Entry other) {
+      return id.equals(other.id) && title.equals(other.title) && url.equals(other.url) && Objects.equals(releaseDate, other.releaseDate)
+          && performers.equals(other.performers);
+    }
+  }
+
+  /**
+   * a search hit
+   */
+  static class ScoredEntry {
+    final Entry entry;
+    final float score;
+
+    ScoredEntry(Entry entry, float score) {
+      this.entry = entry;
+      this.score = score;
+    }
+  }
+}
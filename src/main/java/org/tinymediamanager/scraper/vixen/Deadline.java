@@ -0,0 +1,140 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time budget of a search or scrape call. The deadline is bound to the calling thread (and handed to the worker
+ * threads of the call via {@link #wrap(Callable)}), so every fetch made on behalf of the call - however deep down -
+ * only gets what is left of the budget as its timeout, and waits for retries or permits fail fast once they would
+ * overrun it.
+ *
+ * @author YourName
+ */
+class Deadline {
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+  private final long                         deadlineNanos;
+
+  private Deadline(long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * a deadline the given number of seconds from now; 0 or less means no deadline (null)
+   */
+  static Deadline afterSeconds(int seconds) {
+    return seconds > 0 ? new Deadline(System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds)) : null;
+  }
+
+  /**
+   * the deadline of the current thread or null if it has none
+   */
+  static Deadline current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Bind the given deadline to the current thread until the returned scope is closed
+   *
+   * @param deadline
+   *          the deadline; null binds no deadline
+   * @return the scope restoring the previous deadline of the thread
+   */
+  static Scope enter(Deadline deadline) {
+    Deadline previous = CURRENT.get();
+    if (deadline == null) {
+      CURRENT.remove();
+    }
+    else {
+      CURRENT.set(deadline);
+    }
+    return () -> {
+      if (previous == null) {
+        CURRENT.remove();
+      }
+      else {
+        CURRENT.set(previous);
+      }
+    };
+  }
+
+  /**
+   * The timeout for the next blocking operation of the current thread: the given maximum or what is left of the
+   * deadline, whichever is shorter
+   *
+   * @param max
+   *          the timeout without a deadline
+   * @return the timeout
+   * @throws DeadlineExceededException
+   *           if the deadline has already passed
+   */
+  static Duration timeout(Duration max) throws DeadlineExceededException {
+    Deadline deadline = current();
+    if (deadline == null) {
+      return max;
+    }
+    long remaining = deadline.remainingNanos();
+    if (remaining <= 0) {
+      throw new DeadlineExceededException();
+    }
+    return remaining < max.toNanos() ? Duration.ofNanos(remaining) : max;
+  }
+
+  /**
+   * Make sure the current thread may still wait for the given time
+   *
+   * @param nanos
+   *          the time the thread is about to wait
+   * @throws DeadlineExceededException
+   *           if the wait would overrun the deadline
+   */
+  static void checkWait(long nanos) throws DeadlineExceededException {
+    Deadline deadline = current();
+    if (deadline != null && deadline.remainingNanos() < nanos) {
+      throw new DeadlineExceededException();
+    }
+  }
+
+  long remainingNanos() {
+    return deadlineNanos - System.nanoTime();
+  }
+
+  boolean isExpired() {
+    return remainingNanos() <= 0;
+  }
+
+  /**
+   * the given task, running under this deadline on whichever thread executes it
+   */
+  <V> Callable<V> wrap(Callable<V> task) {
+    return () -> {
+      Scope scope = enter(this);
+      try {
+        return task.call();
+      }
+      finally {
+        scope.close();
+      }
+    };
+  }
+
+  /**
+   * restores the previous deadline of the thread when closed
+   */
+  interface Scope extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /**
+   * thrown instead of starting or continuing a fetch once the time budget of the call is used up
+   */
+  static class DeadlineExceededException extends InterruptedIOException {
+    DeadlineExceededException() {
+      super("time budget exceeded");
+    }
+  }
+}
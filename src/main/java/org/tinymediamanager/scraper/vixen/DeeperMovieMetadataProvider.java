@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Deeper Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class DeeperMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public DeeperMovieMetadataProvider() {
+    super(VixenSite.DEEPER);
+  }
+}
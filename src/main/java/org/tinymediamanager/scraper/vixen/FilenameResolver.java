@@ -0,0 +1,146 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves correctly named files (Site.YY.MM.DD.Performer.Names.XXX...) directly to their scene: the site prefix has to
+ * be the site of the provider, the release date is an exact key into the catalog and the performer names pick the scene
+ * released on that day. No search request and no fuzzy scoring is needed for these files; a file which cannot be checked
+ * this way is left to the live search.
+ *
+ * @author YourName
+ */
+class FilenameResolver {
+  private static final Pattern     FILENAME_PATTERN = Pattern.compile("(?:([A-Za-z]+)\\.)?(?<!\\d)(\\d{2})\\.(\\d{2})\\.(\\d{2})\\.([\\w.]+)");
+  private static final Pattern     RESOLUTION       = Pattern.compile("\\d{3,4}p|\\d+k");
+  // tokens which end the performer part of the filename
+  private static final Set<String> STOP_WORDS       = new HashSet<>(Arrays.asList("xxx", "mp4", "mkv", "wmv", "avi", "mov", "web", "webrip",
+      "webdl", "hevc", "x264", "x265", "h264", "h265", "prt", "sd", "hd", "uhd"));
+
+  private FilenameResolver() {
+    // hide the public constructor for utility classes
+  }
+
+  /**
+   * Parse the site, the release date and the performer tokens from the given filename
+   *
+   * @param filename
+   *          the filename (or search query)
+   * @return the parsed filename or null if it does not follow the naming convention
+   */
+  static ParsedFilename parse(String filename) {
+    if (filename == null || filename.isEmpty()) {
+      return null;
+    }
+
+    Matcher matcher = FILENAME_PATTERN.matcher(filename);
+    if (!matcher.find()) {
+      return null;
+    }
+
+    LocalDate releaseDate;
+    try {
+      releaseDate = LocalDate.of(2000 + Integer.parseInt(matcher.group(2)), Integer.parseInt(matcher.group(3)),
+          Integer.parseInt(matcher.group(4)));
+    }
+    catch (DateTimeException e) {
+      return null;
+    }
+
+    List<String> tokens = new ArrayList<>();
+    for (String token : matcher.group(5).toLowerCase(Locale.ROOT).split("[._]")) {
+      if (STOP_WORDS.contains(token) || RESOLUTION.matcher(token).matches()) {
+        break;
+      }
+      if (!token.isEmpty() && !"and".equals(token)) {
+        tokens.add(token);
+      }
+    }
+
+    return new ParsedFilename(VixenSite.forPrefix(matcher.group(1)), releaseDate, tokens);
+  }
+
+  /**
+   * Find the one scene matching the parsed filename
+   *
+   * @param parsed
+   *          the parsed filename
+   * @param site
+   *          the site of the catalog
+   * @param catalog
+   *          the catalog to look the release date up in
+   * @return the scene or null if the filename is of another site or there is no unique match
+   */
+  static CatalogIndex.Entry resolve(ParsedFilename parsed, VixenSite site, CatalogIndex catalog) {
+    if (parsed.site != site) {
+      return null;
+    }
+
+    List<CatalogIndex.Entry> candidates = catalog.findByReleaseDate(parsed.releaseDate);
+    if (candidates.isEmpty()) {
+      return null;
+    }
+
+    CatalogIndex.Entry best = null;
+    int bestMatches = 0;
+    boolean unique = false;
+    for (CatalogIndex.Entry candidate : candidates) {
+      int matches = countPerformerMatches(parsed.performerTokens, candidate);
+      if (matches > bestMatches) {
+        best = candidate;
+        bestMatches = matches;
+        unique = true;
+      }
+      else if (matches == bestMatches && matches > 0) {
+        unique = false;
+      }
+    }
+
+    // without a performer match (e.g. scenes only known from the sitemap have no performers) nothing is guessed
+    return unique ? best : null;
+  }
+
+  private static int countPerformerMatches(List<String> tokens, CatalogIndex.Entry entry) {
+    Set<String> performerTokens = new HashSet<>();
+    for (String performer : entry.performers) {
+      String normalized = VixenParserUtils.normalizeSearchTerm(performer).toLowerCase(Locale.ROOT);
+      if (!normalized.isEmpty()) {
+        Collections.addAll(performerTokens, normalized.split(" "));
+      }
+    }
+
+    int matches = 0;
+    for (String token : tokens) {
+      if (performerTokens.contains(token)) {
+        matches++;
+      }
+    }
+    return matches;
+  }
+
+  /**
+   * the site (null if the prefix is no site of the network), the release date and the (lower case) performer tokens of a
+   * filename
+   */
+  static class ParsedFilename {
+    final VixenSite    site;
+    final LocalDate    releaseDate;
+    final List<String> performerTokens;
+
+    ParsedFilename(VixenSite site, LocalDate releaseDate, List<String> performerTokens) {
+      this.site = site;
+      this.releaseDate = releaseDate;
+      this.performerTokens = performerTokens;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Protects a host from being overrun and the scraper from stalling on an unhealthy host. Every host gets
+ * <ul>
+ * <li>a token bucket which limits the request rate; the rate is halved on 429, lowered on 5xx, paused for Retry-After
+ * and slowly raised again while requests succeed</li>
+ * <li>a circuit breaker which fails fast after several consecutive failures and lets a single probe request through
+ * once the cool down has passed</li>
+ * </ul>
+ *
+ * @author YourName
+ */
+class HostThrottle {
+  private static final Logger                    LOGGER            = LoggerFactory.getLogger(HostThrottle.class);
+  private static final double                    INITIAL_RATE      = 4;
+  private static final double                    MIN_RATE          = 0.2;
+  private static final double                    MAX_RATE          = 10;
+  // requests per second added after every successful request
+  private static final double                    RATE_INCREASE     = 0.05;
+  private static final double                    BURST             = 4;
+  private static final int                       FAILURE_THRESHOLD = 5;
+  private static final long                      OPEN_DURATION     = TimeUnit.SECONDS.toNanos(30);
+  private static final Map<String, HostThrottle> HOSTS             = new ConcurrentHashMap<>();
+
+  private final String                           host;
+
+  // token bucket
+  private double                                 rate              = INITIAL_RATE;
+  private double                                 tokens            = BURST;
+  private long                                   lastRefill        = System.nanoTime();
+
+  // circuit breaker
+  private int                                    failures;
+  private boolean                                open;
+  private long                                   openedAt;
+  private boolean                                probing;
+
+  private HostThrottle(String host) {
+    this.host = host;
+  }
+
+  /**
+   * the throttle of the given host, shared by all requests to it
+   */
+  static HostThrottle forHost(String host) {
+    return HOSTS.computeIfAbsent(host == null ? "" : host, HostThrottle::new);
+  }
+
+  /**
+   * Wait for a permit to send a request to the host
+   *
+   * @throws CircuitOpenException
+   *           if the circuit is open (the host is considered unhealthy)
+   * @throws Deadline.DeadlineExceededException
+   *           if the wait for the permit would overrun the deadline of the calling thread
+   * @throws InterruptedIOException
+   *           if the thread was interrupted while waiting
+   */
+  void acquire() throws IOException {
+    long waitNanos;
+    synchronized (this) {
+      long now = System.nanoTime();
+      if (open) {
+        if (probing || now - openedAt < OPEN_DURATION) {
+          throw new CircuitOpenException("circuit open for " + host + " after " + failures + " failures");
+        }
+        // half open: let one request through to probe the host
+        probing = true;
+      }
+
+      if (now > lastRefill) {
+        tokens = Math.min(BURST, tokens + (now - lastRefill) * rate / TimeUnit.SECONDS.toNanos(1));
+        lastRefill = now;
+      }
+      tokens -= 1;
+
+      // lastRefill lies in the future while a Retry-After pause is active
+      waitNanos = Math.max(0, lastRefill - now);
+      if (tokens < 0) {
+        waitNanos += (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+      }
+    }
+
+    if (waitNanos > 0) {
+      Deadline deadline = Deadline.current();
+      if (deadline != null && deadline.remainingNanos() < waitNanos) {
+        // give the permit back, the request is not sent
+        synchronized (this) {
+          tokens += 1;
+        }
+        onCancelled();
+        throw new Deadline.DeadlineExceededException();
+      }
+      try {
+        TimeUnit.NANOSECONDS.sleep(waitNanos);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted while waiting for a request permit for " + host);
+      }
+    }
+  }
+
+  /**
+   * the host answered normally (2xx, 3xx or 4xx other than 429)
+   */
+  synchronized void onSuccess() {
+    if (open) {
+      LOGGER.info("{} is healthy again, closing the circuit", host);
+    }
+    open = false;
+    probing = false;
+    failures = 0;
+    rate = Math.min(MAX_RATE, rate + RATE_INCREASE);
+  }
+
+  /**
+   * the host answered with 429 Too Many Requests
+   *
+   * @param retryAfterMillis
+   *          the delay requested by the server; 0 if there was none
+   */
+  synchronized void onThrottled(long retryAfterMillis) {
+    rate = Math.max(MIN_RATE, rate / 2);
+    pause(retryAfterMillis);
+    LOGGER.debug("{} is throttling, lowered the rate to {}/s", host, rate);
+    recordFailure();
+  }
+
+  /**
+   * the host answered with 5xx or did not answer at all
+   *
+   * @param retryAfterMillis
+   *          the delay requested by the server; 0 if there was none
+   */
+  synchronized void onServerError(long retryAfterMillis) {
+    rate = Math.max(MIN_RATE, rate * 0.75);
+    pause(retryAfterMillis);
+    recordFailure();
+  }
+
+  /**
+   * the request was abandoned without an answer of the host (e.g. the thread was interrupted)
+   */
+  synchronized void onCancelled() {
+    probing = false;
+  }
+
+  /**
+   * @return true if requests to the host currently fail fast
+   */
+  synchronized boolean isOpen() {
+    return open;
+  }
+
+  private void pause(long millis) {
+    if (millis > 0) {
+      // no tokens until the pause is over
+      lastRefill = Math.max(lastRefill, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis));
+      tokens = Math.min(tokens, 0);
+    }
+  }
+
+  private void recordFailure() {
+    failures++;
+    if (probing || (!open && failures >= FAILURE_THRESHOLD)) {
+      LOGGER.warn("{} failed {} times in a row, failing fast for {} s", host, failures, TimeUnit.NANOSECONDS.toSeconds(OPEN_DURATION));
+      open = true;
+      openedAt = System.nanoTime();
+    }
+    probing = false;
+  }
+
+  /**
+   * thrown instead of sending a request while the host is considered unhealthy
+   */
+  static class CircuitOpenException extends IOException {
+    CircuitOpenException(String message) {
+      super(message);
+    }
+  }
+}
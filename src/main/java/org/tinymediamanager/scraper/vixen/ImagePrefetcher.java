@@ -0,0 +1,285 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+
+/**
+ * Downloads posters and actor photos in the background into a local store, so every image is downloaded once no matter
+ * how many movies use it. Images are addressed by the hash of their URL without the query parameters which change
+ * between requests for the same image (signatures, expiry times, tracking); the version and size parameters are kept,
+ * so a republished image gets a new entry.
+ * <p>
+ * An image which is already in the store is handed to tMM as local file URL; any other image keeps its remote URL and
+ * is queued for download, so the next movie using it gets the local copy. The queue is bounded, images which do not fit
+ * are skipped. The store is bounded by the size of its files like the {@link ResponseCache}: the least recently used
+ * images are deleted when it grows beyond that.
+ *
+ * @author YourName
+ */
+class ImagePrefetcher {
+  private static final Logger          LOGGER          = LoggerFactory.getLogger(ImagePrefetcher.class);
+  private static final int             THREADS         = 2;
+  private static final int             QUEUE_SIZE      = 256;
+  private static final long            MAX_BYTES       = 500L * 1024 * 1024;
+  // query parameters which differ between requests for the same image
+  private static final Set<String>     VOLATILE        = Set.of("expires", "exp", "signature", "sig", "token", "key-pair-id",
+      "policy", "t", "ts", "_");
+  private static final ImagePrefetcher INSTANCE        = new ImagePrefetcher(Paths.get(Globals.CACHE_FOLDER, "vixen", "images"),
+      MAX_BYTES);
+
+  private final Path                   folder;
+  private final long                   maxBytes;
+  private final Map<String, Boolean>   queued          = new ConcurrentHashMap<>();
+  private final Map<String, Long>      index           = new LinkedHashMap<>(16, 0.75f, true);
+  private boolean                      indexLoaded     = false;
+  private long                         totalBytes      = 0;
+
+  private final AtomicLong             downloads       = new AtomicLong();
+  private final AtomicLong             bytesDownloaded = new AtomicLong();
+  private final ThreadPoolExecutor     executor;
+
+  ImagePrefetcher(Path folder, long maxBytes) {
+    this.folder = folder;
+    this.maxBytes = maxBytes;
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+      Thread thread = new Thread(r, "vixen-image-prefetch-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * the store shared by all provider instances
+   */
+  static ImagePrefetcher getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Get the URL to hand to tMM for the given image
+   *
+   * @param url
+   *          the remote URL of the image
+   * @return the local file URL if the image is in the store, otherwise the given URL (and the image is queued for
+   *         download)
+   */
+  String localUrl(String url) {
+    if (url == null || !url.startsWith("http")) {
+      return url;
+    }
+
+    String key = key(url);
+    Path file = folder.resolve(key + extension(url));
+    if (Files.exists(file)) {
+      touch(file);
+      return file.toUri().toString();
+    }
+
+    // only one download per image, even if several movies ask for it at the same time
+    if (queued.putIfAbsent(key, Boolean.TRUE) == null) {
+      try {
+        executor.execute(() -> {
+          try {
+            download(url, file);
+          }
+          finally {
+            queued.remove(key);
+          }
+        });
+      }
+      catch (RejectedExecutionException e) {
+        LOGGER.debug("Image prefetch queue is full, skipping {}", url);
+        queued.remove(key);
+      }
+    }
+    return url;
+  }
+
+  private void download(String url, Path file) {
+    if (Files.exists(file)) {
+      return;
+    }
+
+    try {
+      Files.createDirectories(folder);
+      Path tmp = Files.createTempFile(folder, "image", ".tmp");
+      try {
+        long bytes = VixenHttpClient.getInstance().download(url, tmp);
+        downloads.incrementAndGet();
+        bytesDownloaded.addAndGet(bytes);
+        long size = Files.size(tmp);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.debug("Prefetched {} to {}", url, file);
+
+        synchronized (index) {
+          loadIndex();
+          Long previous = index.put(file.getFileName().toString(), size);
+          totalBytes += size - (previous == null ? 0 : previous);
+          evict();
+        }
+      }
+      finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not prefetch {}: {}", url, e.getMessage());
+    }
+  }
+
+  long getDownloads() {
+    return downloads.get();
+  }
+
+  long getBytesDownloaded() {
+    return bytesDownloaded.get();
+  }
+
+  /**
+   * mark the given image as recently used, in memory and (for the next start) on disk
+   */
+  private void touch(Path file) {
+    synchronized (index) {
+      loadIndex();
+      index.get(file.getFileName().toString());
+    }
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+    catch (IOException e) {
+      // the image is only evicted a little earlier
+    }
+  }
+
+  private void loadIndex() {
+    if (indexLoaded) {
+      return;
+    }
+    indexLoaded = true;
+
+    if (!Files.isDirectory(folder)) {
+      return;
+    }
+
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+      for (Path file : stream) {
+        if (file.getFileName().toString().endsWith(".tmp")) {
+          Files.deleteIfExists(file);
+        }
+        else {
+          files.add(file);
+        }
+      }
+
+      // oldest first, so the access ordered map starts with the least recently used images
+      files.sort(Comparator.comparingLong(ImagePrefetcher::lastModified));
+      for (Path file : files) {
+        long size = Files.size(file);
+        index.put(file.getFileName().toString(), size);
+        totalBytes += size;
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not read image store folder: {}", e.getMessage());
+    }
+
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+    while (totalBytes > maxBytes && it.hasNext()) {
+      Map.Entry<String, Long> eldest = it.next();
+      it.remove();
+      totalBytes -= eldest.getValue();
+      try {
+        Files.deleteIfExists(folder.resolve(eldest.getKey()));
+      }
+      catch (IOException e) {
+        LOGGER.debug("Could not evict image {}: {}", eldest.getKey(), e.getMessage());
+      }
+    }
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    }
+    catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * the hash of the normalized URL without fragment and volatile query parameters; the remaining parameters are sorted
+   */
+  static String key(String url) {
+    String normalized = VixenHttpClient.normalizeUrl(url);
+    int end = normalized.indexOf('?');
+    if (end < 0) {
+      return ActorPhotoCache.hash(normalized);
+    }
+
+    List<String> params = new ArrayList<>();
+    for (String param : normalized.substring(end + 1).split("&")) {
+      int eq = param.indexOf('=');
+      String name = (eq >= 0 ? param.substring(0, eq) : param).toLowerCase(Locale.ROOT);
+      if (!name.isEmpty() && !VOLATILE.contains(name) && !name.startsWith("utm_")) {
+        params.add(param);
+      }
+    }
+    Collections.sort(params);
+
+    String base = normalized.substring(0, end);
+    return ActorPhotoCache.hash(params.isEmpty() ? base : base + "?" + String.join("&", params));
+  }
+
+  private static String extension(String url) {
+    try {
+      String path = new URI(url).getPath();
+      if (path != null) {
+        String lower = path.toLowerCase(Locale.ROOT);
+        for (String extension : new String[] { ".jpg", ".jpeg", ".png", ".webp", ".gif", ".avif" }) {
+          if (lower.endsWith(extension)) {
+            return extension;
+          }
+        }
+      }
+    }
+    catch (URISyntaxException e) {
+      // fall through to the default
+    }
+    return ".jpg";
+  }
+}
@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Milfy Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class MilfyMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public MilfyMovieMetadataProvider() {
+    super(VixenSite.MILFY);
+  }
+}
@@ -0,0 +1,435 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Extracts the scene data from the {@code __NEXT_DATA__} JSON blob which the Next.js frontend embeds into every detail
+ * page. The blob is read with a streaming parser: it skips everything up to the {@code video} object and only
+ * materializes the fields we need. This is independent of the (hashed) CSS class names of the rendered page.
+ *
+ * @author YourName
+ */
+class NextDataExtractor {
+  private static final Logger      LOGGER       = LoggerFactory.getLogger(NextDataExtractor.class);
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private NextDataExtractor() {
+    // hide the public constructor for utility classes
+  }
+
+  /**
+   * Extract the scene data from the given detail page
+   *
+   * @param doc
+   *          the detail page
+   * @param baseUrl
+   *          the base URL of the site, used to build the performer profile URLs
+   * @return the extracted scene data (possibly incomplete) or null if the page has no usable data blob
+   */
+  static VixenScene extract(Document doc, String baseUrl) {
+    Element script = doc.getElementById("__NEXT_DATA__");
+    if (script == null) {
+      return null;
+    }
+    return extract(script.data(), baseUrl);
+  }
+
+  /**
+   * Extract the scene data from the given {@code __NEXT_DATA__} JSON
+   *
+   * @param json
+   *          the JSON blob
+   * @param baseUrl
+   *          the base URL of the site, used to build the performer profile URLs
+   * @return the extracted scene data (possibly incomplete) or null if the blob contains no video
+   */
+  static VixenScene extract(String json, String baseUrl) {
+    try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+      if (!seekObject(parser, "video")) {
+        return null;
+      }
+      return readVideo(parser, baseUrl);
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not parse __NEXT_DATA__: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Extract all scenes listed in the {@code __NEXT_DATA__} blob of a listing page
+   *
+   * @param doc
+   *          the listing page
+   * @param baseUrl
+   *          the base URL of the site
+   * @return the listed scenes; empty if the page has no usable data blob
+   */
+  static List<CatalogIndex.Entry> extractVideos(Document doc, String baseUrl) {
+    List<CatalogIndex.Entry> videos = new ArrayList<>();
+    Element script = doc.getElementById("__NEXT_DATA__");
+    if (script == null) {
+      return videos;
+    }
+
+    try (JsonParser parser = JSON_FACTORY.createParser(script.data())) {
+      JsonToken token = parser.nextToken();
+      if (token != null) {
+        collectVideos(parser, token, baseUrl, videos);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not parse __NEXT_DATA__: {}", e.getMessage());
+    }
+    return videos;
+  }
+
+  /**
+   * Walk the value at the current token and collect every object which looks like a video (has a title, a slug and a
+   * release date). Nested objects are walked as well, the models of a video are read as its performers.
+   */
+  private static void collectVideos(JsonParser parser, JsonToken token, String baseUrl, List<CatalogIndex.Entry> videos) throws IOException {
+    if (token == JsonToken.START_ARRAY) {
+      while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+        collectVideos(parser, token, baseUrl, videos);
+      }
+      return;
+    }
+    if (token != JsonToken.START_OBJECT) {
+      return;
+    }
+
+    String title = null;
+    String slug = null;
+    LocalDate releaseDate = null;
+    List<String> performers = new ArrayList<>();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken value = parser.nextToken();
+
+      if ("title".equals(field) && value == JsonToken.VALUE_STRING) {
+        title = parser.getText().trim();
+      }
+      else if ("slug".equals(field) && value == JsonToken.VALUE_STRING) {
+        slug = parser.getText().trim();
+      }
+      else if ("releaseDate".equals(field) && value == JsonToken.VALUE_STRING) {
+        releaseDate = parseDate(parser.getText().trim());
+      }
+      else if ("models".equals(field) && value == JsonToken.START_ARRAY) {
+        List<VixenScene.Model> models = readModels(parser, value, baseUrl);
+        if (models != null) {
+          for (VixenScene.Model model : models) {
+            performers.add(model.name);
+          }
+        }
+      }
+      else {
+        collectVideos(parser, value, baseUrl, videos);
+      }
+    }
+
+    if (title != null && slug != null && releaseDate != null) {
+      videos.add(new CatalogIndex.Entry(slug, title, baseUrl + "/videos/" + slug, releaseDate, performers));
+    }
+  }
+
+  /**
+   * advance the parser to the start of the first object value of a field with the given name
+   */
+  private static boolean seekObject(JsonParser parser, String fieldName) throws IOException {
+    JsonToken token;
+    while ((token = parser.nextToken()) != null) {
+      if (token == JsonToken.FIELD_NAME && fieldName.equals(parser.getCurrentName()) && parser.nextToken() == JsonToken.START_OBJECT) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static VixenScene readVideo(JsonParser parser, String baseUrl) throws IOException {
+    VixenScene scene = new VixenScene();
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken value = parser.nextToken();
+
+      switch (field) {
+        case "title":
+          scene.title = text(parser, value);
+          break;
+
+        case "description":
+          scene.plot = text(parser, value);
+          break;
+
+        case "releaseDate":
+          scene.releaseDate = parseDate(text(parser, value));
+          break;
+
+        case "runLength":
+          scene.runtime = parseRuntime(parser, value);
+          break;
+
+        case "rating":
+          scene.rating = parseRating(parser, value);
+          break;
+
+        case "directors":
+          scene.directors = readNames(parser, value);
+          break;
+
+        case "models":
+          scene.models = readModels(parser, value, baseUrl);
+          break;
+
+        case "images":
+          readImages(parser, value, scene);
+          break;
+
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+
+    return scene;
+  }
+
+  private static String text(JsonParser parser, JsonToken value) throws IOException {
+    if (value == JsonToken.VALUE_STRING) {
+      return parser.getText().trim();
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  private static LocalDate parseDate(String value) {
+    if (value == null || value.length() < 10) {
+      return null;
+    }
+    try {
+      // e.g. 2023-05-14T10:00:00.000Z or 2023-05-14
+      return value.length() > 10 ? OffsetDateTime.parse(value).toLocalDate() : LocalDate.parse(value);
+    }
+    catch (DateTimeParseException e) {
+      LOGGER.debug("Could not parse release date '{}'", value);
+      return null;
+    }
+  }
+
+  /**
+   * the run length is given either in seconds or as [hh:]mm:ss; returns minutes, rounded up after 30 seconds
+   */
+  private static Integer parseRuntime(JsonParser parser, JsonToken value) throws IOException {
+    int seconds;
+    if (value == JsonToken.VALUE_NUMBER_INT) {
+      seconds = parser.getIntValue();
+    }
+    else if (value == JsonToken.VALUE_STRING) {
+      seconds = 0;
+      try {
+        for (String part : parser.getText().trim().split(":")) {
+          seconds = seconds * 60 + Integer.parseInt(part);
+        }
+      }
+      catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    else {
+      parser.skipChildren();
+      return null;
+    }
+
+    int minutes = seconds / 60;
+    if (seconds % 60 > 30) {
+      minutes++;
+    }
+    return minutes > 0 ? minutes : null;
+  }
+
+  private static Float parseRating(JsonParser parser, JsonToken value) throws IOException {
+    if (value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_NUMBER_FLOAT) {
+      return parser.getFloatValue();
+    }
+    if (value == JsonToken.VALUE_STRING) {
+      try {
+        return Float.parseFloat(parser.getText().trim());
+      }
+      catch (NumberFormatException e) {
+        return null;
+      }
+    }
+    parser.skipChildren();
+    return null;
+  }
+
+  /**
+   * an array of names, either as plain strings or as objects with a name field
+   */
+  private static List<String> readNames(JsonParser parser, JsonToken value) throws IOException {
+    if (value != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return null;
+    }
+
+    List<String> names = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+      if (token == JsonToken.VALUE_STRING) {
+        names.add(parser.getText().trim());
+      }
+      else if (token == JsonToken.START_OBJECT) {
+        String name = readObject(parser, "name")[0];
+        if (name != null) {
+          names.add(name);
+        }
+      }
+      else {
+        parser.skipChildren();
+      }
+    }
+    return names;
+  }
+
+  private static List<VixenScene.Model> readModels(JsonParser parser, JsonToken value, String baseUrl) throws IOException {
+    if (value != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return null;
+    }
+
+    List<VixenScene.Model> models = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      String[] fields = readObject(parser, "name", "slug");
+      if (fields[0] != null) {
+        models.add(new VixenScene.Model(fields[0], fields[1] != null ? baseUrl + "/models/" + fields[1] : ""));
+      }
+    }
+    return models;
+  }
+
+  /**
+   * images: { poster: [ { src, width, height }, ... ], carousel: [ still, ... ], ... } - every size of the poster and
+   * of the gallery stills; a still is either an array of sizes or an object whose first array holds its sizes
+   */
+  private static void readImages(JsonParser parser, JsonToken value, VixenScene scene) throws IOException {
+    if (value != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
+    }
+
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("poster".equals(field) && token == JsonToken.START_ARRAY) {
+        scene.poster = readSizes(parser);
+      }
+      else if (("carousel".equals(field) || "gallery".equals(field)) && token == JsonToken.START_ARRAY) {
+        scene.gallery = readGallery(parser);
+      }
+      else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private static List<List<VixenScene.Image>> readGallery(JsonParser parser) throws IOException {
+    List<List<VixenScene.Image>> gallery = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+      List<VixenScene.Image> sizes = null;
+      if (token == JsonToken.START_ARRAY) {
+        sizes = readSizes(parser);
+      }
+      else if (token == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          if (parser.nextToken() == JsonToken.START_ARRAY && sizes == null) {
+            sizes = readSizes(parser);
+          }
+          else {
+            parser.skipChildren();
+          }
+        }
+      }
+      else {
+        parser.skipChildren();
+      }
+
+      if (sizes != null && !sizes.isEmpty()) {
+        gallery.add(sizes);
+      }
+    }
+    return gallery;
+  }
+
+  /**
+   * [ { src, width, height }, ... ] - the parser is positioned at the start of the array
+   */
+  private static List<VixenScene.Image> readSizes(JsonParser parser) throws IOException {
+    List<VixenScene.Image> sizes = new ArrayList<>();
+    JsonToken token;
+    while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+      if (token != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      String[] fields = readObject(parser, "src", "width", "height");
+      if (fields[0] != null && !fields[0].isEmpty()) {
+        sizes.add(new VixenScene.Image(fields[0], parseInt(fields[1]), parseInt(fields[2])));
+      }
+    }
+    return sizes;
+  }
+
+  /**
+   * read the scalar values of the given fields of the current object; nested values are skipped
+   */
+  private static String[] readObject(JsonParser parser, String... names) throws IOException {
+    String[] values = new String[names.length];
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if (token.isScalarValue()) {
+        for (int i = 0; i < names.length; i++) {
+          if (names[i].equals(field)) {
+            values[i] = parser.getText().trim();
+          }
+        }
+      }
+      else {
+        parser.skipChildren();
+      }
+    }
+    return values;
+  }
+
+  private static int parseInt(String value) {
+    try {
+      return value == null ? 0 : Integer.parseInt(value);
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+}
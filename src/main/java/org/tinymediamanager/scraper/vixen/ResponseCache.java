@@ -0,0 +1,372 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+
+/**
+ * An on-disk cache for fetched pages. Entries are addressed by the hash of their URL and stored gzip compressed
+ * together with their validators (ETag/Last-Modified), so the transport can revalidate them with a conditional request
+ * and skip the download when the server answers 304.
+ * <p>
+ * The cache is bounded by the size of its files on disk; when it grows beyond that, the least recently used entries are
+ * deleted. The LRU order is kept in memory and restored from the file modification times at startup.
+ *
+ * @author YourName
+ */
+class ResponseCache {
+  private static final Logger        LOGGER            = LoggerFactory.getLogger(ResponseCache.class);
+  private static final int           VERSION           = 1;
+  private static final long          DEFAULT_MAX_BYTES = 100L * 1024 * 1024;
+  private static final ResponseCache INSTANCE          = new ResponseCache(Paths.get(Globals.CACHE_FOLDER, "vixen", "pages"),
+      DEFAULT_MAX_BYTES);
+
+  private final Path                 folder;
+  private final Map<String, Long>    index             = new LinkedHashMap<>(16, 0.75f, true);
+  private boolean                    indexLoaded       = false;
+  private long                       totalBytes        = 0;
+  private volatile long              maxBytes;
+
+  private final AtomicLong           hits              = new AtomicLong();
+  private final AtomicLong           misses            = new AtomicLong();
+  private final AtomicLong           revalidated       = new AtomicLong();
+  private final AtomicLong           bytesDownloaded   = new AtomicLong();
+  private final AtomicLong           bytesFromCache    = new AtomicLong();
+
+  ResponseCache(Path folder, long maxBytes) {
+    this.folder = folder;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * the cache shared by all provider instances
+   */
+  static ResponseCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * set the maximum size of the cache on disk; a value of 0 disables the cache
+   *
+   * @param maxBytes
+   *          the maximum size in bytes
+   */
+  void setMaxBytes(long maxBytes) {
+    this.maxBytes = maxBytes;
+    synchronized (index) {
+      if (indexLoaded) {
+        evict();
+      }
+    }
+  }
+
+  boolean isEnabled() {
+    return maxBytes > 0;
+  }
+
+  /**
+   * Look up the cached response for the given URL
+   *
+   * @param url
+   *          the URL
+   * @return the cached entry or null
+   */
+  Entry get(String url) {
+    if (!isEnabled()) {
+      return null;
+    }
+
+    String key = ActorPhotoCache.hash(url);
+    synchronized (index) {
+      loadIndex();
+      if (index.get(key) == null) {
+        return null;
+      }
+    }
+
+    Path file = folder.resolve(key);
+    try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != VERSION || !url.equals(in.readUTF())) {
+        return null;
+      }
+
+      String etag = in.readUTF();
+      String lastModified = in.readUTF();
+      String charset = in.readUTF();
+      long expiresAt = in.readLong();
+      byte[] body = new byte[in.readInt()];
+      in.readFully(body);
+
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return new Entry(etag, lastModified, charset.isEmpty() ? null : charset, expiresAt, body);
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not read cached response for {}: {}", url, e.getMessage());
+      remove(key);
+      return null;
+    }
+  }
+
+  /**
+   * Store the response for the given URL
+   *
+   * @param url
+   *          the URL
+   * @param entry
+   *          the response to store
+   */
+  void put(String url, Entry entry) {
+    if (!isEnabled()) {
+      return;
+    }
+
+    String key = ActorPhotoCache.hash(url);
+    try {
+      Files.createDirectories(folder);
+      Path tmp = Files.createTempFile(folder, "page", ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+        out.writeInt(VERSION);
+        out.writeUTF(url);
+        out.writeUTF(entry.etag);
+        out.writeUTF(entry.lastModified);
+        out.writeUTF(entry.charset == null ? "" : entry.charset);
+        out.writeLong(entry.expiresAt);
+        out.writeInt(entry.body.length);
+        out.write(entry.body);
+      }
+      long size = Files.size(tmp);
+      Files.move(tmp, folder.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      synchronized (index) {
+        loadIndex();
+        Long previous = index.put(key, size);
+        totalBytes += size - (previous == null ? 0 : previous);
+        evict();
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not cache response for {}: {}", url, e.getMessage());
+    }
+  }
+
+  void recordHit(Entry entry) {
+    hits.incrementAndGet();
+    bytesFromCache.addAndGet(entry.body.length);
+  }
+
+  void recordRevalidated(Entry entry) {
+    revalidated.incrementAndGet();
+    recordHit(entry);
+  }
+
+  void recordMiss(long bytes) {
+    misses.incrementAndGet();
+    bytesDownloaded.addAndGet(bytes);
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  long getRevalidated() {
+    return revalidated.get();
+  }
+
+  long getBytesDownloaded() {
+    return bytesDownloaded.get();
+  }
+
+  long getBytesFromCache() {
+    return bytesFromCache.get();
+  }
+
+  long getSizeOnDisk() {
+    synchronized (index) {
+      return totalBytes;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "hits=" + getHits() + " (revalidated=" + getRevalidated() + "), misses=" + getMisses() + ", downloaded=" + getBytesDownloaded()
+        + " bytes, fromCache=" + getBytesFromCache() + " bytes, onDisk=" + getSizeOnDisk() + " bytes";
+  }
+
+  /**
+   * Write the LRU index to the warm cache snapshot, least recently used first (empty if it has not been loaded)
+   */
+  void writeSnapshot(DataOutputStream out) throws IOException {
+    List<String> keys;
+    List<Long> sizes;
+    synchronized (index) {
+      keys = new ArrayList<>(index.keySet());
+      sizes = new ArrayList<>(index.values());
+    }
+
+    out.writeInt(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      out.writeUTF(keys.get(i));
+      out.writeLong(sizes.get(i));
+    }
+  }
+
+  /**
+   * Restore the LRU index from the warm cache snapshot instead of listing the cache folder. The index is only taken if
+   * no page was cached or evicted after the snapshot was written.
+   *
+   * @param in
+   *          the snapshot, positioned at the index written by {@link #writeSnapshot(DataOutputStream)}
+   * @param writtenAt
+   *          the time the snapshot was written
+   */
+  void readSnapshot(DataInputStream in, long writtenAt) throws IOException {
+    int size = in.readInt();
+    Map<String, Long> snapshot = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      snapshot.put(in.readUTF(), in.readLong());
+    }
+
+    if (snapshot.isEmpty() || !WarmCache.unchangedSince(folder, writtenAt)) {
+      return;
+    }
+
+    synchronized (index) {
+      if (indexLoaded) {
+        return;
+      }
+      indexLoaded = true;
+      for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+        index.put(entry.getKey(), entry.getValue());
+        totalBytes += entry.getValue();
+      }
+      evict();
+    }
+  }
+
+  private void remove(String key) {
+    synchronized (index) {
+      Long size = index.remove(key);
+      if (size != null) {
+        totalBytes -= size;
+      }
+    }
+    try {
+      Files.deleteIfExists(folder.resolve(key));
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not delete cached response {}: {}", key, e.getMessage());
+    }
+  }
+
+  private void loadIndex() {
+    if (indexLoaded) {
+      return;
+    }
+    indexLoaded = true;
+
+    if (!Files.isDirectory(folder)) {
+      return;
+    }
+
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+      for (Path file : stream) {
+        if (file.getFileName().toString().endsWith(".tmp")) {
+          Files.deleteIfExists(file);
+        }
+        else {
+          files.add(file);
+        }
+      }
+
+      // oldest first, so the access ordered map starts with the least recently used entries
+      files.sort(Comparator.comparingLong(ResponseCache::lastModified));
+      for (Path file : files) {
+        long size = Files.size(file);
+        index.put(file.getFileName().toString(), size);
+        totalBytes += size;
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not read response cache folder: {}", e.getMessage());
+    }
+
+    evict();
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+    while (totalBytes > maxBytes && it.hasNext()) {
+      Map.Entry<String, Long> eldest = it.next();
+      it.remove();
+      totalBytes -= eldest.getValue();
+      try {
+        Files.deleteIfExists(folder.resolve(eldest.getKey()));
+      }
+      catch (IOException e) {
+        LOGGER.debug("Could not evict cached response {}: {}", eldest.getKey(), e.getMessage());
+      }
+    }
+  }
+
+  private static long lastModified(Path file) {
+    try {
+      return Files.getLastModifiedTime(file).toMillis();
+    }
+    catch (IOException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * a cached response body with its validators
+   */
+  static class Entry {
+    final String etag;
+    final String lastModified;
+    final String charset;
+    final long   expiresAt;
+    final byte[] body;
+
+    Entry(String etag, String lastModified, String charset, long expiresAt, byte[] body) {
+      this.etag = etag == null ? "" : etag;
+      this.lastModified = lastModified == null ? "" : lastModified;
+      this.charset = charset;
+      this.expiresAt = expiresAt;
+      this.body = body;
+    }
+
+    boolean isFresh() {
+      return expiresAt > System.currentTimeMillis();
+    }
+
+    boolean hasValidators() {
+      return !etag.isEmpty() || !lastModified.isEmpty();
+    }
+  }
+}
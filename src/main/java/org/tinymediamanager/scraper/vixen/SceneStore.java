@@ -0,0 +1,313 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+
+/**
+ * Remembers what was extracted from every scraped scene, so a refresh of an unchanged scene does not need to parse its
+ * detail page or fetch its performer pages again. Every scene is stored with two fingerprints:
+ * <ul>
+ * <li>the page fingerprint - the hash of the fetched page; the page itself is revalidated by the transport with a
+ * conditional request, so an unchanged page costs a 304</li>
+ * <li>the fields fingerprint - the hash of the extracted fields; if the page changed but the extracted fields did not
+ * (e.g. new ads or build ids), the performer photos are still reused</li>
+ * </ul>
+ * One small gzip compressed file per scene id is kept in the tMM cache folder.
+ *
+ * @author YourName
+ */
+class SceneStore {
+  private static final Logger     LOGGER   = LoggerFactory.getLogger(SceneStore.class);
+  private static final int        VERSION  = 1;
+  private static final SceneStore INSTANCE = new SceneStore(Paths.get(Globals.CACHE_FOLDER, "vixen", "scenes"));
+
+  private final Path              folder;
+
+  SceneStore(Path folder) {
+    this.folder = folder;
+  }
+
+  /**
+   * the store shared by all provider instances
+   */
+  static SceneStore getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Look up the stored scene with the given id
+   *
+   * @param sceneId
+   *          the id of the scene (the last path segment of its URL)
+   * @return the stored entry or null
+   */
+  Entry get(String sceneId) {
+    Path file = folder.resolve(ActorPhotoCache.hash(sceneId));
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+
+    try (DataInputStream in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != VERSION || !sceneId.equals(in.readUTF())) {
+        return null;
+      }
+
+      String url = in.readUTF();
+      String pageFingerprint = in.readUTF();
+      String fieldsFingerprint = in.readUTF();
+      long storedAt = in.readLong();
+      byte[] fields = new byte[in.readInt()];
+      in.readFully(fields);
+      List<String> photoUrls = readStrings(in);
+      return new Entry(url, pageFingerprint, fieldsFingerprint, storedAt, readScene(fields), photoUrls);
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not read stored scene {}: {}", sceneId, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Store the given scene
+   *
+   * @param sceneId
+   *          the id of the scene
+   * @param entry
+   *          the extracted scene with its fingerprints
+   */
+  void put(String sceneId, Entry entry) {
+    try {
+      Files.createDirectories(folder);
+      Path tmp = Files.createTempFile(folder, "scene", ".tmp");
+      try {
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+          byte[] fields = writeScene(entry.scene);
+          out.writeInt(VERSION);
+          out.writeUTF(sceneId);
+          out.writeUTF(entry.url);
+          out.writeUTF(entry.pageFingerprint);
+          out.writeUTF(entry.fieldsFingerprint);
+          out.writeLong(entry.storedAt);
+          out.writeInt(fields.length);
+          out.write(fields);
+          writeStrings(out, entry.photoUrls);
+        }
+        Files.move(tmp, folder.resolve(ActorPhotoCache.hash(sceneId)), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not store scene {}: {}", sceneId, e.getMessage());
+    }
+  }
+
+  /**
+   * the fingerprint of a fetched page: the hash of its body (a 304 answer yields the cached body and thus the same
+   * fingerprint)
+   */
+  static String pageFingerprint(VixenHttpClient.Response page) {
+    return ActorPhotoCache.hash(page.body);
+  }
+
+  /**
+   * the fingerprint of the extracted fields of a scene
+   */
+  static String fieldsFingerprint(VixenScene scene) {
+    try {
+      return ActorPhotoCache.hash(writeScene(scene));
+    }
+    catch (IOException e) {
+      // writing to memory does not fail
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static byte[] writeScene(VixenScene scene) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeString(out, scene.title);
+      if (scene.models == null) {
+        out.writeInt(-1);
+      }
+      else {
+        out.writeInt(scene.models.size());
+        for (VixenScene.Model model : scene.models) {
+          writeString(out, model.name);
+          writeString(out, model.url);
+        }
+      }
+      out.writeLong(scene.releaseDate == null ? Long.MIN_VALUE : scene.releaseDate.toEpochDay());
+      writeStrings(out, scene.directors);
+      writeString(out, scene.plot);
+      out.writeInt(scene.runtime == null ? Integer.MIN_VALUE : scene.runtime);
+      out.writeFloat(scene.rating == null ? Float.NaN : scene.rating);
+      writeImages(out, scene.poster);
+      if (scene.gallery == null) {
+        out.writeInt(-1);
+      }
+      else {
+        out.writeInt(scene.gallery.size());
+        for (List<VixenScene.Image> still : scene.gallery) {
+          writeImages(out, still);
+        }
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  static VixenScene readScene(byte[] fields) throws IOException {
+    VixenScene scene = new VixenScene();
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(fields))) {
+      scene.title = readString(in);
+      int models = in.readInt();
+      if (models >= 0) {
+        scene.models = new ArrayList<>(models);
+        for (int i = 0; i < models; i++) {
+          scene.models.add(new VixenScene.Model(readString(in), readString(in)));
+        }
+      }
+      long releaseDate = in.readLong();
+      scene.releaseDate = releaseDate == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(releaseDate);
+      scene.directors = readStrings(in);
+      scene.plot = readString(in);
+      int runtime = in.readInt();
+      scene.runtime = runtime == Integer.MIN_VALUE ? null : runtime;
+      float rating = in.readFloat();
+      scene.rating = Float.isNaN(rating) ? null : rating;
+      scene.poster = readImages(in);
+      int stills = in.readInt();
+      if (stills >= 0) {
+        scene.gallery = new ArrayList<>(stills);
+        for (int i = 0; i < stills; i++) {
+          scene.gallery.add(readImages(in));
+        }
+      }
+    }
+    return scene;
+  }
+
+  private static void writeImages(DataOutputStream out, List<VixenScene.Image> images) throws IOException {
+    if (images == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(images.size());
+    for (VixenScene.Image image : images) {
+      writeString(out, image.url);
+      out.writeInt(image.width);
+      out.writeInt(image.height);
+    }
+  }
+
+  private static List<VixenScene.Image> readImages(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      return null;
+    }
+    List<VixenScene.Image> images = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      images.add(new VixenScene.Image(readString(in), in.readInt(), in.readInt()));
+    }
+    return images;
+  }
+
+  private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+    if (values == null) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(values.size());
+    for (String value : values) {
+      writeString(out, value);
+    }
+  }
+
+  private static List<String> readStrings(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size < 0) {
+      return null;
+    }
+    List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      values.add(readString(in));
+    }
+    return values;
+  }
+
+  // writeUTF is limited to 64 KB, plots are not
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * a stored scene with the performer photos resolved for it
+   */
+  static class Entry {
+    final String       url;
+    final String       pageFingerprint;
+    final String       fieldsFingerprint;
+    final long         storedAt;
+    final VixenScene   scene;
+    final List<String> photoUrls;
+
+    Entry(String url, String pageFingerprint, String fieldsFingerprint, long storedAt, VixenScene scene, List<String> photoUrls) {
+      this.url = url;
+      this.pageFingerprint = pageFingerprint;
+      this.fieldsFingerprint = fieldsFingerprint;
+      this.storedAt = storedAt;
+      this.scene = scene;
+      this.photoUrls = photoUrls == null ? new ArrayList<>() : photoUrls;
+    }
+
+    /**
+     * true if a photo was found for every performer with a profile page; photos missing because of network errors are
+     * not reused
+     */
+    boolean hasAllPhotos() {
+      List<String> performerUrls = VixenMovieMetadataProvider.getPerformerUrls(scene);
+      for (int i = 0; i < performerUrls.size(); i++) {
+        if (!performerUrls.get(i).isEmpty() && (i >= photoUrls.size() || photoUrls.get(i).isEmpty())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
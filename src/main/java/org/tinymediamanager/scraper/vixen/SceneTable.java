@@ -0,0 +1,355 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The scene catalog as a compact, read-only table in a memory-mapped file. Opening the table only maps the file -
+ * nothing is deserialized and nothing of the catalog is kept on the heap; lookups read the mapped bytes directly and
+ * decode only the rows they return.
+ * <p>
+ * Layout (big endian):
+ *
+ * <pre>
+ * header  magic, version, last crawl (long), complete flag, row count, offset of the string pool
+ * rows    fixed size, sorted by release date:
+ *         id (hash of the slug), release date (epoch day), then the pool offsets of slug, title, URL,
+ *         performers (separated by '\n') and the search key
+ * pool    strings as length + UTF-8 bytes
+ * </pre>
+ *
+ * The search key is the lower case, normalized text of title, slug and performers, enclosed in spaces, so searches can
+ * match words and substrings on the raw bytes.
+ *
+ * @author YourName
+ */
+class SceneTable {
+  private static final int        MAGIC         = 0x56534354;
+  private static final int        VERSION       = 1;
+  private static final int        HEADER_SIZE   = 32;
+  private static final int        ROW_SIZE      = 28;
+  private static final int        NO_DATE       = Integer.MIN_VALUE;
+
+  // row columns
+  private static final int        ID            = 0;
+  private static final int        RELEASE_DATE  = 4;
+  private static final int        SLUG          = 8;
+  private static final int        TITLE         = 12;
+  private static final int        URL           = 16;
+  private static final int        PERFORMERS    = 20;
+  private static final int        SEARCH_KEY    = 24;
+
+  // a table without rows, used until the first crawl
+  static final SceneTable         EMPTY         = new SceneTable(ByteBuffer.allocate(HEADER_SIZE));
+
+  private final ByteBuffer        buffer;
+  private final long              lastCrawl;
+  private final boolean           complete;
+  private final int               count;
+  private final int               pool;
+  // the rows ordered by id hash, built on the first lookup by id
+  private volatile int[]          rowsById;
+
+  private SceneTable(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.lastCrawl = buffer.getLong(8);
+    this.complete = buffer.getInt(16) != 0;
+    this.count = buffer.getInt(20);
+    this.pool = buffer.getInt(24);
+  }
+
+  /**
+   * Map the table in the given file
+   *
+   * @param file
+   *          the table file
+   * @return the table
+   * @throws IOException
+   *           if the file could not be mapped or is not a table of this version
+   */
+  static SceneTable open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // the mapping stays valid after the channel is closed
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        throw new IOException("not a scene table: " + file);
+      }
+      SceneTable table = new SceneTable(buffer);
+      if ((long) HEADER_SIZE + (long) table.count * ROW_SIZE > table.pool || table.pool > buffer.capacity()) {
+        throw new IOException("truncated scene table: " + file);
+      }
+      return table;
+    }
+  }
+
+  int size() {
+    return count;
+  }
+
+  long getLastCrawl() {
+    return lastCrawl;
+  }
+
+  boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * the scene at the given row
+   */
+  CatalogIndex.Entry get(int row) {
+    int base = rowOffset(row);
+    int epochDay = buffer.getInt(base + RELEASE_DATE);
+    String performers = string(buffer.getInt(base + PERFORMERS));
+    return new CatalogIndex.Entry(string(buffer.getInt(base + SLUG)), string(buffer.getInt(base + TITLE)), string(buffer.getInt(base + URL)),
+        epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay),
+        performers.isEmpty() ? Collections.emptyList() : Arrays.asList(performers.split("\n")));
+  }
+
+  /**
+   * the row of the scene with the given id (slug) or -1; a binary search over the rows ordered by id hash
+   */
+  int find(String id) {
+    int[] rows = rowsById();
+    int hash = id.hashCode();
+    int low = 0;
+    int high = rows.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (idAt(rows[mid]) < hash) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+
+    byte[] slug = null;
+    for (int i = low; i < rows.length && idAt(rows[i]) == hash; i++) {
+      if (slug == null) {
+        slug = id.getBytes(StandardCharsets.UTF_8);
+      }
+      if (equalsAt(buffer.getInt(rowOffset(rows[i]) + SLUG), slug)) {
+        return rows[i];
+      }
+    }
+    return -1;
+  }
+
+  private int[] rowsById() {
+    int[] rows = rowsById;
+    if (rows == null) {
+      // hash in the upper, row in the lower half: sorting the longs sorts the rows by hash
+      long[] keys = new long[count];
+      for (int row = 0; row < count; row++) {
+        keys[row] = ((long) idAt(row) << 32) | row;
+      }
+      Arrays.sort(keys);
+      rows = new int[count];
+      for (int i = 0; i < count; i++) {
+        rows[i] = (int) keys[i];
+      }
+      rowsById = rows;
+    }
+    return rows;
+  }
+
+  private int idAt(int row) {
+    return buffer.getInt(rowOffset(row) + ID);
+  }
+
+  /**
+   * the rows of all scenes released on the given day (binary search over the rows)
+   */
+  List<Integer> findByReleaseDate(LocalDate releaseDate) {
+    long epochDay = releaseDate.toEpochDay();
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (buffer.getInt(rowOffset(mid) + RELEASE_DATE) < epochDay) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+
+    List<Integer> rows = new ArrayList<>(2);
+    for (int row = low; row < count && buffer.getInt(rowOffset(row) + RELEASE_DATE) == epochDay; row++) {
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  /**
+   * true if the search key of the given row contains the given bytes
+   *
+   * @param row
+   *          the row
+   * @param needle
+   *          the UTF-8 bytes to look for (lower case)
+   */
+  boolean searchKeyContains(int row, byte[] needle) {
+    int offset = pool + buffer.getInt(rowOffset(row) + SEARCH_KEY);
+    int length = buffer.getInt(offset);
+    int start = offset + 4;
+    outer: for (int i = start; i <= start + length - needle.length; i++) {
+      for (int j = 0; j < needle.length; j++) {
+        if (buffer.get(i + j) != needle[j]) {
+          continue outer;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * the search key of the given row, see {@link #searchKey(CatalogIndex.Entry)}
+   */
+  String searchKey(int row) {
+    return string(buffer.getInt(rowOffset(row) + SEARCH_KEY));
+  }
+
+  /**
+   * the search key of a scene: normalized, lower case title, slug and performers, enclosed in spaces
+   */
+  static String searchKey(CatalogIndex.Entry entry) {
+    StringBuilder sb = new StringBuilder(" ");
+    sb.append(VixenParserUtils.normalizeSearchTerm(entry.title)).append(' ');
+    sb.append(VixenParserUtils.normalizeSearchTerm(entry.id.replace('-', ' '))).append(' ');
+    for (String performer : entry.performers) {
+      sb.append(VixenParserUtils.normalizeSearchTerm(performer)).append(' ');
+    }
+    return sb.toString().toLowerCase(Locale.ROOT);
+  }
+
+  private int rowOffset(int row) {
+    return HEADER_SIZE + row * ROW_SIZE;
+  }
+
+  private String string(int offset) {
+    int position = pool + offset;
+    byte[] bytes = new byte[buffer.getInt(position)];
+    buffer.get(position + 4, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private boolean equalsAt(int offset, byte[] value) {
+    int position = pool + offset;
+    if (buffer.getInt(position) != value.length) {
+      return false;
+    }
+    for (int i = 0; i < value.length; i++) {
+      if (buffer.get(position + 4 + i) != value[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes a new table. The strings go straight into a temporary pool file, only the fixed size rows are kept in memory
+   * until they are sorted and written in {@link #finish(long, boolean)}.
+   */
+  static class Writer implements Closeable {
+    private final Path             file;
+    private final Path             poolFile;
+    private final DataOutputStream poolOut;
+    private int                    poolSize = 0;
+    private int[]                  rows     = new int[ROW_SIZE / 4 * 1024];
+    private int                    count    = 0;
+
+    Writer(Path file) throws IOException {
+      this.file = file;
+      this.poolFile = Files.createTempFile(file.getParent(), "pool", ".tmp");
+      this.poolOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(poolFile)));
+    }
+
+    /**
+     * add a scene; the caller makes sure every id is added only once
+     */
+    void add(CatalogIndex.Entry entry) throws IOException {
+      int columns = ROW_SIZE / 4;
+      if ((count + 1) * columns > rows.length) {
+        rows = Arrays.copyOf(rows, rows.length * 2);
+      }
+
+      int base = count * columns;
+      rows[base] = entry.id.hashCode();
+      rows[base + 1] = entry.releaseDate == null ? NO_DATE : (int) entry.releaseDate.toEpochDay();
+      rows[base + 2] = writeString(entry.id);
+      rows[base + 3] = writeString(entry.title);
+      rows[base + 4] = writeString(entry.url);
+      rows[base + 5] = writeString(String.join("\n", entry.performers));
+      rows[base + 6] = writeString(searchKey(entry));
+      count++;
+    }
+
+    /**
+     * Write the table file
+     *
+     * @param lastCrawl
+     *          the time of the crawl which produced the table
+     * @param complete
+     *          true if the whole catalog has been crawled at least once
+     */
+    void finish(long lastCrawl, boolean complete) throws IOException {
+      poolOut.close();
+
+      int columns = ROW_SIZE / 4;
+      Integer[] order = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (o1, o2) -> Integer.compare(rows[o1 * columns + 1], rows[o2 * columns + 1]));
+
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(lastCrawl);
+        out.writeInt(complete ? 1 : 0);
+        out.writeInt(count);
+        out.writeInt(HEADER_SIZE + count * ROW_SIZE);
+        out.writeInt(0);
+        for (Integer row : order) {
+          for (int column = 0; column < columns; column++) {
+            out.writeInt(rows[row * columns + column]);
+          }
+        }
+        Files.copy(poolFile, out);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      poolOut.close();
+      Files.deleteIfExists(poolFile);
+    }
+
+    private int writeString(String value) throws IOException {
+      byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+      int offset = poolSize;
+      poolOut.writeInt(bytes.length);
+      poolOut.write(bytes);
+      poolSize += 4 + bytes.length;
+      return offset;
+    }
+  }
+}
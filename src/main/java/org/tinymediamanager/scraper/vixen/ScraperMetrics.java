@@ -0,0 +1,349 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jsoup.HttpStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counters and latency histograms for the phases of a scrape, shared by all provider instances. Published as JMX MBean
+ * (see {@link ScraperMetricsMBean}) and optionally written to the log as a periodic summary.
+ * <p>
+ * Recording is lock free ({@link LongAdder} and {@link AtomicLongArray}), so it can stay enabled in production.
+ *
+ * @author YourName
+ */
+class ScraperMetrics implements ScraperMetricsMBean {
+  private static final Logger         LOGGER      = LoggerFactory.getLogger(ScraperMetrics.class);
+  private static final String         OBJECT_NAME = "org.tinymediamanager.scraper.vixen:type=ScraperMetrics";
+  // upper bounds (ms) of the histogram buckets; the last bucket takes everything above
+  private static final long[]         BUCKETS     = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000 };
+  private static final ScraperMetrics INSTANCE    = new ScraperMetrics();
+
+  /**
+   * the phases of a scrape
+   */
+  enum Phase {
+    SEARCH_FETCH("search fetch"),
+    SEARCH_SCORING("search scoring"),
+    DETAIL_FETCH("detail fetch"),
+    DETAIL_PARSE("detail parse"),
+    ACTOR_FETCH("actor fetch");
+
+    private final String label;
+
+    Phase(String label) {
+      this.label = label;
+    }
+  }
+
+  private final Map<Phase, Histogram>  phases           = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> errorsByType     = new ConcurrentHashMap<>();
+  private final LongAdder              errors           = new LongAdder();
+  private final LongAdder              timeouts         = new LongAdder();
+  private final LongAdder              fallbackSearches = new LongAdder();
+
+  private ScheduledExecutorService     logExecutor;
+  private ScheduledFuture<?>           logTask;
+  private int                          logIntervalMinutes;
+
+  private ScraperMetrics() {
+    for (Phase phase : Phase.values()) {
+      phases.put(phase, new Histogram());
+    }
+    register();
+  }
+
+  /**
+   * the metrics shared by all provider instances
+   */
+  static ScraperMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  private void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (!server.isRegistered(name)) {
+        server.registerMBean(this, name);
+      }
+    }
+    catch (JMException | RuntimeException e) {
+      LOGGER.debug("Could not register the scraper metrics MBean: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Run the given task and record its duration (and its error, if any) for the given phase
+   *
+   * @param phase
+   *          the phase the task belongs to
+   * @param task
+   *          the task
+   * @return the result of the task
+   * @throws IOException
+   *           the exception of the task
+   */
+  <V> V time(Phase phase, TimedTask<V> task) throws IOException {
+    long start = System.nanoTime();
+    try {
+      V result = task.run();
+      phases.get(phase).record(System.nanoTime() - start, false);
+      return result;
+    }
+    catch (IOException | RuntimeException e) {
+      phases.get(phase).record(System.nanoTime() - start, true);
+      recordError(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Record the duration of a task of the given phase which has been started at the given time
+   *
+   * @param phase
+   *          the phase the task belongs to
+   * @param startNanos
+   *          the {@link System#nanoTime()} at the start of the task
+   */
+  void record(Phase phase, long startNanos) {
+    phases.get(phase).record(System.nanoTime() - startNanos, false);
+  }
+
+  /**
+   * Count an error by its type
+   */
+  void recordError(Throwable e) {
+    errors.increment();
+    String type;
+    if (e instanceof HttpStatusException) {
+      type = "HTTP " + ((HttpStatusException) e).getStatusCode();
+    }
+    else if (e instanceof HttpTimeoutException || e instanceof SocketTimeoutException || e instanceof Deadline.DeadlineExceededException) {
+      // before InterruptedIOException, which all three extend
+      type = "timeout";
+      timeouts.increment();
+    }
+    else if (e instanceof HostThrottle.CircuitOpenException) {
+      type = "circuit open";
+    }
+    else if (e instanceof InterruptedIOException) {
+      type = "interrupted";
+    }
+    else {
+      type = e.getClass().getSimpleName();
+    }
+    errorsByType.computeIfAbsent(type, key -> new LongAdder()).increment();
+  }
+
+  /**
+   * count a search which had to fall back to single words
+   */
+  void recordFallbackSearch() {
+    fallbackSearches.increment();
+  }
+
+  @Override
+  public String[] getPhases() {
+    List<String> lines = new ArrayList<>();
+    for (Phase phase : Phase.values()) {
+      lines.add(phase.label + ": " + phases.get(phase));
+    }
+    return lines.toArray(new String[0]);
+  }
+
+  @Override
+  public String[] getErrorsByType() {
+    List<String> lines = new ArrayList<>();
+    for (Map.Entry<String, LongAdder> entry : new TreeMap<>(errorsByType).entrySet()) {
+      lines.add(entry.getKey() + ": " + entry.getValue().sum());
+    }
+    return lines.toArray(new String[0]);
+  }
+
+  @Override
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  @Override
+  public long getTimeouts() {
+    return timeouts.sum();
+  }
+
+  @Override
+  public long getFallbackSearches() {
+    return fallbackSearches.sum();
+  }
+
+  @Override
+  public long getBytesDownloaded() {
+    return ResponseCache.getInstance().getBytesDownloaded();
+  }
+
+  @Override
+  public long getBytesFromCache() {
+    return ResponseCache.getInstance().getBytesFromCache();
+  }
+
+  @Override
+  public long getCacheHits() {
+    return ResponseCache.getInstance().getHits();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return ResponseCache.getInstance().getMisses();
+  }
+
+  @Override
+  public long getImagesDownloaded() {
+    return ImagePrefetcher.getInstance().getDownloads();
+  }
+
+  @Override
+  public long getImageBytesDownloaded() {
+    return ImagePrefetcher.getInstance().getBytesDownloaded();
+  }
+
+  @Override
+  public synchronized int getLogIntervalMinutes() {
+    return logIntervalMinutes;
+  }
+
+  @Override
+  public synchronized void setLogIntervalMinutes(int minutes) {
+    minutes = Math.max(0, minutes);
+    if (minutes == logIntervalMinutes) {
+      return;
+    }
+
+    logIntervalMinutes = minutes;
+    if (logTask != null) {
+      logTask.cancel(false);
+      logTask = null;
+    }
+    if (minutes > 0) {
+      if (logExecutor == null) {
+        logExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "vixen-metrics");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      logTask = logExecutor.scheduleAtFixedRate(this::logSummary, minutes, minutes, TimeUnit.MINUTES);
+    }
+  }
+
+  @Override
+  public void logSummary() {
+    StringBuilder sb = new StringBuilder("Vixen scraper metrics:");
+    for (String line : getPhases()) {
+      sb.append("\n  ").append(line);
+    }
+    sb.append(String.format(Locale.ROOT, "%n  downloaded: %d KB, from cache: %d KB, fallback searches: %d, errors: %d (timeouts: %d)",
+        getBytesDownloaded() / 1024, getBytesFromCache() / 1024, getFallbackSearches(), getErrors(), getTimeouts()));
+    sb.append(String.format(Locale.ROOT, "%n  images prefetched: %d (%d KB)", getImagesDownloaded(), getImageBytesDownloaded() / 1024));
+    for (String line : getErrorsByType()) {
+      sb.append("\n    ").append(line);
+    }
+    LOGGER.info("{}", sb);
+  }
+
+  @Override
+  public void reset() {
+    for (Phase phase : Phase.values()) {
+      phases.put(phase, new Histogram());
+    }
+    errorsByType.clear();
+    errors.reset();
+    timeouts.reset();
+    fallbackSearches.reset();
+  }
+
+  /**
+   * count, errors, total/max time and a fixed bucket histogram of the durations of one phase
+   */
+  private static class Histogram {
+    private final LongAdder       count      = new LongAdder();
+    private final LongAdder       errors     = new LongAdder();
+    private final LongAdder       totalNanos = new LongAdder();
+    private final AtomicLongArray buckets    = new AtomicLongArray(BUCKETS.length + 1);
+    private volatile long         maxNanos;
+
+    private void record(long nanos, boolean error) {
+      count.increment();
+      if (error) {
+        errors.increment();
+      }
+      totalNanos.add(nanos);
+      if (nanos > maxNanos) {
+        // a lost update only makes the max slightly too low
+        maxNanos = nanos;
+      }
+
+      long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+      int bucket = 0;
+      while (bucket < BUCKETS.length && millis > BUCKETS[bucket]) {
+        bucket++;
+      }
+      buckets.incrementAndGet(bucket);
+    }
+
+    /**
+     * the upper bound of the bucket containing the given percentile (the max for the last bucket)
+     */
+    private long percentile(long total, int percentile) {
+      long threshold = (long) Math.ceil(total * percentile / 100.0);
+      long seen = 0;
+      for (int i = 0; i < buckets.length(); i++) {
+        seen += buckets.get(i);
+        if (seen >= threshold) {
+          return i < BUCKETS.length ? Math.min(BUCKETS[i], TimeUnit.NANOSECONDS.toMillis(maxNanos)) : TimeUnit.NANOSECONDS.toMillis(maxNanos);
+        }
+      }
+      return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+    }
+
+    @Override
+    public String toString() {
+      long total = count.sum();
+      if (total == 0) {
+        return "-";
+      }
+      return String.format(Locale.ROOT, "%d (%d errors), mean %.1f ms, p50 %d ms, p95 %d ms, p99 %d ms, max %d ms", total, errors.sum(),
+          totalNanos.sum() / 1e6 / total, percentile(total, 50), percentile(total, 95), percentile(total, 99),
+          TimeUnit.NANOSECONDS.toMillis(maxNanos));
+    }
+  }
+
+  /**
+   * a task whose duration is recorded by {@link #time(Phase, TimedTask)}
+   */
+  @FunctionalInterface
+  interface TimedTask<V> {
+    V run() throws IOException;
+  }
+}
@@ -0,0 +1,56 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The JMX view of the {@link ScraperMetrics}, registered as org.tinymediamanager.scraper.vixen:type=ScraperMetrics.
+ *
+ * @author YourName
+ */
+public interface ScraperMetricsMBean {
+  /**
+   * @return one line per phase: count, errors and latency (mean, p50, p95, p99, max) in ms
+   */
+  String[] getPhases();
+
+  /**
+   * @return one line per error type (HTTP status, timeout, circuit open, exception class) with its count
+   */
+  String[] getErrorsByType();
+
+  long getErrors();
+
+  long getTimeouts();
+
+  long getFallbackSearches();
+
+  long getBytesDownloaded();
+
+  long getBytesFromCache();
+
+  long getCacheHits();
+
+  long getCacheMisses();
+
+  /**
+   * @return the number of images downloaded into the image store (not counted as cache misses)
+   */
+  long getImagesDownloaded();
+
+  long getImageBytesDownloaded();
+
+  /**
+   * @return the interval of the summary in the log in minutes; 0 if it is disabled
+   */
+  int getLogIntervalMinutes();
+
+  void setLogIntervalMinutes(int minutes);
+
+  /**
+   * write the summary to the log now
+   */
+  void logSummary();
+
+  /**
+   * reset all counters and histograms (the cache counters are not affected)
+   */
+  void reset();
+}
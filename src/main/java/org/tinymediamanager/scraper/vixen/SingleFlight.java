@@ -0,0 +1,104 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent identical loads: while a value is being loaded for a key, further callers for the same key wait
+ * for that load instead of starting their own. Nothing is kept once the load is done - caching is left to the caller.
+ * The in-flight table is a {@link ConcurrentHashMap}, so loads of different keys never block each other.
+ *
+ * @param <V>
+ *          the type of the loaded values
+ * @author YourName
+ */
+class SingleFlight<V> {
+  private final Map<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Load the value for the given key, or wait for the load already running for it
+   *
+   * @param key
+   *          the key (e.g. the normalized URL)
+   * @param loader
+   *          loads the value if no load for the key is running
+   * @return the loaded value
+   * @throws IOException
+   *           the exception of the load (shared by all callers waiting for it); if the load ran out of the time budget
+   *           of the caller which started it, a waiter with budget left loads again instead
+   */
+  V execute(String key, Loader<V> loader) throws IOException {
+    while (true) {
+      CompletableFuture<V> future = new CompletableFuture<>();
+      CompletableFuture<V> running = inFlight.putIfAbsent(key, future);
+      if (running == null) {
+        return load(key, future, loader);
+      }
+
+      try {
+        return await(running, key);
+      }
+      catch (Deadline.DeadlineExceededException e) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+          throw e;
+        }
+        // the deadline of the other caller has passed, not ours: join or start the next load
+      }
+    }
+  }
+
+  private V load(String key, CompletableFuture<V> future, Loader<V> loader) throws IOException {
+    try {
+      V value = loader.load();
+      future.complete(value);
+      return value;
+    }
+    catch (IOException | RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    }
+    finally {
+      inFlight.remove(key, future);
+    }
+  }
+
+  private static <V> V await(CompletableFuture<V> future, String key) throws IOException {
+    try {
+      // the load belongs to another call, wait only as long as the own deadline allows
+      Deadline deadline = Deadline.current();
+      return deadline == null ? future.get() : future.get(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS);
+    }
+    catch (TimeoutException e) {
+      throw new Deadline.DeadlineExceededException();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for " + key);
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  @FunctionalInterface
+  interface Loader<V> {
+    V load() throws IOException;
+  }
+}
@@ -0,0 +1,169 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Stream-parses sitemap XML with StAX: scenes (&lt;url&gt; entries pointing to /videos/...) and nested sitemaps
+ * (&lt;sitemap&gt; entries of a sitemap index) are handed to the handler one by one while the document is read, so
+ * neither the document nor the list of scenes is ever held in memory. The title and release date are taken from the
+ * video sitemap extension if present; otherwise the title is built from the slug.
+ *
+ * @author YourName
+ */
+class SitemapReader {
+  private static final String          VIDEO_NAMESPACE = "http://www.google.com/schemas/sitemap-video/1.1";
+  private static final XMLInputFactory XML_FACTORY     = createFactory();
+
+  private SitemapReader() {
+    // hide the public constructor for utility classes
+  }
+
+  /**
+   * Parse the given sitemap or sitemap index
+   *
+   * @param in
+   *          the XML
+   * @param baseUrl
+   *          the base URL of the site (scene URLs are rebuilt from it)
+   * @param handler
+   *          receives the scenes and nested sitemaps
+   * @throws IOException
+   *           if the XML could not be read or is malformed
+   */
+  static void parse(InputStream in, String baseUrl, Handler handler) throws IOException {
+    XMLStreamReader reader = null;
+    try {
+      reader = XML_FACTORY.createXMLStreamReader(in);
+
+      String loc = null;
+      String title = null;
+      String publicationDate = null;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          switch (reader.getLocalName()) {
+            case "url":
+            case "sitemap":
+              loc = null;
+              title = null;
+              publicationDate = null;
+              break;
+
+            case "loc":
+              // the image extension has its own loc elements
+              if (!isExtension(reader.getNamespaceURI())) {
+                loc = reader.getElementText().trim();
+              }
+              break;
+
+            case "title":
+              // the image extension has its own titles
+              if (VIDEO_NAMESPACE.equals(reader.getNamespaceURI())) {
+                title = reader.getElementText().trim();
+              }
+              break;
+
+            case "publication_date":
+              publicationDate = reader.getElementText().trim();
+              break;
+
+            default:
+              break;
+          }
+        }
+        else if (event == XMLStreamConstants.END_ELEMENT) {
+          if ("sitemap".equals(reader.getLocalName()) && loc != null) {
+            handler.onSitemap(loc);
+          }
+          else if ("url".equals(reader.getLocalName()) && loc != null && loc.contains("/videos/")) {
+            CatalogIndex.Entry entry = createEntry(loc, title, publicationDate, baseUrl);
+            if (entry != null) {
+              handler.onScene(entry);
+            }
+          }
+        }
+      }
+    }
+    catch (XMLStreamException e) {
+      throw new IOException("could not parse sitemap: " + e.getMessage(), e);
+    }
+    finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        }
+        catch (XMLStreamException e) {
+          // nothing to do
+        }
+      }
+    }
+  }
+
+  private static CatalogIndex.Entry createEntry(String loc, String title, String publicationDate, String baseUrl) {
+    String path = loc;
+    int end = path.indexOf('?');
+    if (end >= 0) {
+      path = path.substring(0, end);
+    }
+    while (path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+
+    String slug = path.substring(path.lastIndexOf('/') + 1);
+    if (slug.isEmpty() || path.indexOf("/videos/") + "/videos/".length() != path.lastIndexOf('/') + 1) {
+      // not a scene page (e.g. /videos/ itself or a nested path)
+      return null;
+    }
+
+    LocalDate releaseDate = null;
+    if (publicationDate != null && publicationDate.length() >= 10) {
+      try {
+        releaseDate = LocalDate.parse(publicationDate.substring(0, 10));
+      }
+      catch (DateTimeParseException e) {
+        // no release date
+      }
+    }
+
+    String url = baseUrl + "/videos/" + slug;
+    return new CatalogIndex.Entry(slug, title == null || title.isEmpty() ? VixenParserUtils.titleFromUrl(url) : title, url, releaseDate,
+        Collections.emptyList());
+  }
+
+  private static boolean isExtension(String namespace) {
+    return namespace != null && namespace.startsWith("http://www.google.com/schemas/sitemap-");
+  }
+
+  private static XMLInputFactory createFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // sitemaps do not need DTDs, do not resolve anything from the outside
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    return factory;
+  }
+
+  /**
+   * receives the content of a sitemap while it is parsed
+   */
+  interface Handler {
+    /**
+     * a scene of the sitemap
+     */
+    void onScene(CatalogIndex.Entry entry) throws IOException;
+
+    /**
+     * a nested sitemap of a sitemap index
+     */
+    void onSitemap(String url) throws IOException;
+  }
+}
@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Slayed Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class SlayedMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public SlayedMovieMetadataProvider() {
+    super(VixenSite.SLAYED);
+  }
+}
@@ -0,0 +1,108 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.core.entities.MediaGenres;
+import org.tinymediamanager.core.entities.Person;
+import org.tinymediamanager.scraper.MediaMetadata;
+
+/**
+ * Calls into parts of the tinyMediaManager API which are not available in every 5.x release. The API is probed once
+ * when this class is loaded; every capability is bound to a direct call (via {@link LambdaMetafactory}) if the method
+ * exists, or to a fallback otherwise. The scrape path calls the bound functions without any reflection or exception
+ * handling.
+ *
+ * @author YourName
+ */
+final class TmmCompat {
+  private static final Logger               LOGGER          = LoggerFactory.getLogger(TmmCompat.class);
+  private static final MethodHandles.Lookup LOOKUP          = MethodHandles.lookup();
+
+  private static final PersonFlag           SET_AUTO_UPDATE = bind(PersonFlag.class, Person.class, "setAutoUpdateEnabled", boolean.class);
+  private static final MetadataText         ADD_GENRE       = bind(MetadataText.class, MediaMetadata.class, "addGenre", String.class);
+  private static final MetadataText         SET_LANGUAGE    = bind(MetadataText.class, MediaMetadata.class, "setLanguage", String.class);
+
+  private TmmCompat() {
+    // hide the public constructor for utility classes
+  }
+
+  /**
+   * tell tMM to fetch the photo of the person automatically (no-op if the API does not support it)
+   */
+  static void enableAutoUpdate(Person person) {
+    if (SET_AUTO_UPDATE != null) {
+      SET_AUTO_UPDATE.set(person, true);
+    }
+  }
+
+  /**
+   * add the genre by its name; falls back to the given genre if the API only knows the {@link MediaGenres} constants
+   */
+  static void addGenre(MediaMetadata md, String genre, MediaGenres fallback) {
+    if (ADD_GENRE != null) {
+      ADD_GENRE.set(md, genre);
+    }
+    else {
+      md.addGenre(fallback);
+    }
+  }
+
+  /**
+   * set the spoken language of the movie (no-op if the API does not support it)
+   */
+  static void setLanguage(MediaMetadata md, String language) {
+    if (SET_LANGUAGE != null) {
+      SET_LANGUAGE.set(md, language);
+    }
+  }
+
+  /**
+   * Bind the public instance method with the given name and parameter to the single method of the given functional
+   * interface
+   *
+   * @return the bound function or null if the method does not exist
+   */
+  private static <T> T bind(Class<T> functionalInterface, Class<?> owner, String name, Class<?> parameter) {
+    Method method;
+    try {
+      method = owner.getMethod(name, parameter);
+    }
+    catch (NoSuchMethodException e) {
+      LOGGER.debug("tMM API has no {}.{}({}), using the fallback", owner.getSimpleName(), name, parameter.getSimpleName());
+      return null;
+    }
+
+    try {
+      MethodHandle target = LOOKUP.unreflect(method);
+      MethodType invokedType = MethodType.methodType(void.class, owner, parameter);
+      Method sam = functionalInterface.getDeclaredMethods()[0];
+      Object function = LambdaMetafactory
+          .metafactory(LOOKUP, sam.getName(), MethodType.methodType(functionalInterface),
+              MethodType.methodType(sam.getReturnType(), sam.getParameterTypes()), target, invokedType)
+          .getTarget()
+          .invoke();
+      LOGGER.debug("tMM API supports {}.{}({})", owner.getSimpleName(), name, parameter.getSimpleName());
+      return functionalInterface.cast(function);
+    }
+    catch (Throwable e) {
+      LOGGER.debug("Could not bind {}.{}({}): {}", owner.getSimpleName(), name, parameter.getSimpleName(), e.getMessage());
+      return null;
+    }
+  }
+
+  @FunctionalInterface
+  interface PersonFlag {
+    void set(Person person, boolean value);
+  }
+
+  @FunctionalInterface
+  interface MetadataText {
+    void set(MediaMetadata md, String value);
+  }
+}
@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Tushy Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class TushyMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public TushyMovieMetadataProvider() {
+    super(VixenSite.TUSHY);
+  }
+}
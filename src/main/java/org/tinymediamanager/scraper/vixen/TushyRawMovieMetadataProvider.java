@@ -0,0 +1,13 @@
+package org.tinymediamanager.scraper.vixen;
+
+/**
+ * The Tushy Raw Movie Metadata Provider (a site of the Vixen network, scraped by the Vixen engine).
+ *
+ * @author YourName
+ */
+public class TushyRawMovieMetadataProvider extends VixenMovieMetadataProvider {
+
+  public TushyRawMovieMetadataProvider() {
+    super(VixenSite.TUSHY_RAW);
+  }
+}
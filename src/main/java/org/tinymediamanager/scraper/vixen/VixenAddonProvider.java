@@ -19,8 +19,15 @@ public class VixenAddonProvider implements IAddonProvider {
   public List<Class<? extends IMediaProvider>> getAddonClasses() {
     List<Class<? extends IMediaProvider>> addons = new ArrayList<>();
     
-    // add the movie metadata provider
+    // add the movie metadata providers - one per site of the network, all sharing one transport and cache
     addons.add(VixenMovieMetadataProvider.class);
+    addons.add(TushyMovieMetadataProvider.class);
+    addons.add(TushyRawMovieMetadataProvider.class);
+    addons.add(BlackedMovieMetadataProvider.class);
+    addons.add(BlackedRawMovieMetadataProvider.class);
+    addons.add(DeeperMovieMetadataProvider.class);
+    addons.add(SlayedMovieMetadataProvider.class);
+    addons.add(MilfyMovieMetadataProvider.class);
     
     return addons;
   }
@@ -0,0 +1,525 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import org.jsoup.HttpStatusException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The HTTP transport for all requests of the Vixen scraper. One {@link HttpClient} is shared by all provider instances,
+ * so connections to the site are pooled, kept alive and multiplexed over HTTP/2 where the server supports it. Headers
+ * and timeouts are configured here and nowhere else; the fetched bytes are handed to Jsoup for parsing.
+ * <p>
+ * Every response goes through the {@link ResponseCache}: fresh entries are served without a request, stale entries are
+ * revalidated with If-None-Match/If-Modified-Since. Concurrent requests for the same URL are coalesced into one.
+ * Requests are paced and retried per host by the {@link HostThrottle}.
+ *
+ * @author YourName
+ */
+class VixenHttpClient {
+  private static final Logger          LOGGER          = LoggerFactory.getLogger(VixenHttpClient.class);
+  private static final String          USER_AGENT      = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+  private static final Duration        CONNECT_TIMEOUT = Duration.ofSeconds(10);
+  private static final Duration        REQUEST_TIMEOUT = Duration.ofSeconds(15);
+  private static final int             MAX_BODY_SIZE   = 8 * 1024 * 1024;
+  private static final int             MAX_ATTEMPTS    = 3;
+  private static final long            INITIAL_BACKOFF = 500;
+  private static final long            MAX_BACKOFF     = 8000;
+  // a server asking for a longer pause is not waited for
+  private static final long            MAX_RETRY_AFTER = 60_000;
+  private static final VixenHttpClient INSTANCE        = new VixenHttpClient();
+
+  private final HttpClient             client;
+  private final SingleFlight<Response> inFlight        = new SingleFlight<>();
+
+  private VixenHttpClient() {
+    client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(CONNECT_TIMEOUT)
+        .build();
+  }
+
+  /**
+   * the transport shared by all provider instances
+   */
+  static VixenHttpClient getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Fetch and parse the HTML page at the given URL
+   *
+   * @param url
+   *          the URL to fetch
+   * @return the parsed document
+   * @throws IOException
+   *           if the page could not be fetched or the server did not answer with 2xx
+   */
+  Document getDocument(String url) throws IOException {
+    return getDocument(url, new String[0]);
+  }
+
+  /**
+   * Fetch and parse the leading part of the HTML page at the given URL. The body is read as a stream and the download
+   * is aborted as soon as all given markers have been seen (in the given order), so only the part of the page up to and
+   * including the last marker is transferred and parsed. If a marker never shows up, the whole page is read.
+   *
+   * @param url
+   *          the URL to fetch
+   * @param stopAfter
+   *          the markers after which the rest of the page is not needed
+   * @return the parsed (possibly truncated) document
+   * @throws IOException
+   *           if the page could not be fetched or the server did not answer with 2xx
+   */
+  Document getDocument(String url, String... stopAfter) throws IOException {
+    return get(url, stopAfter).parse(url);
+  }
+
+  /**
+   * Fetch the raw (decompressed) body at the given URL
+   *
+   * @param url
+   *          the URL to fetch
+   * @return the response
+   * @throws IOException
+   *           if the resource could not be fetched or the server did not answer with 2xx
+   */
+  Response get(String url) throws IOException {
+    return get(url, new String[0]);
+  }
+
+  /**
+   * Stream the (decompressed) body at the given URL to the given reader, bypassing the page cache and the size limit
+   * (used for large XML files like sitemaps). Bodies of .gz URLs are unpacked as well.
+   *
+   * @param url
+   *          the URL to fetch
+   * @param reader
+   *          reads the body
+   * @return the result of the reader
+   * @throws IOException
+   *           if the resource could not be fetched or read, or the server did not answer with 2xx
+   */
+  <T> T read(String url, BodyReader<T> reader) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+        .header("User-Agent", USER_AGENT)
+        .header("Accept-Encoding", "gzip")
+        .GET();
+
+    HttpResponse<InputStream> response = send(builder);
+    try (InputStream is = response.body()) {
+      if (response.statusCode() < 200 || response.statusCode() >= 300) {
+        throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+      }
+      InputStream body = decode(response, is);
+      if (url.endsWith(".gz")) {
+        body = new GZIPInputStream(body);
+      }
+      return reader.read(body);
+    }
+  }
+
+  /**
+   * Download the resource at the given URL into the given file, bypassing the page cache (used for images)
+   *
+   * @param url
+   *          the URL to fetch
+   * @param target
+   *          the file to write
+   * @return the number of bytes written
+   * @throws IOException
+   *           if the resource could not be fetched or the server did not answer with 2xx
+   */
+  long download(String url, Path target) throws IOException {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+        .header("User-Agent", USER_AGENT)
+        .header("Accept", "image/avif,image/webp,image/*,*/*;q=0.8")
+        .GET();
+
+    HttpResponse<InputStream> response = send(builder);
+    try (InputStream is = response.body()) {
+      if (response.statusCode() < 200 || response.statusCode() >= 300) {
+        throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+      }
+      return Files.copy(decode(response, is), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Fetch the raw (decompressed) leading part of the body at the given URL, see {@link #getDocument(String, String...)}
+   *
+   * @param url
+   *          the URL to fetch
+   * @param stopAfter
+   *          the markers after which the rest of the body is not needed
+   * @return the response
+   * @throws IOException
+   *           if the resource could not be fetched or the server did not answer with 2xx
+   */
+  Response get(String url, String... stopAfter) throws IOException {
+    // a truncated body must not be served to callers which need the whole page
+    String cacheKey = stopAfter.length == 0 ? url : url + " " + String.join(" ", stopAfter);
+
+    // concurrent callers for the same page share one request
+    String flightKey = stopAfter.length == 0 ? normalizeUrl(url) : normalizeUrl(url) + " " + String.join(" ", stopAfter);
+    return inFlight.execute(flightKey, () -> fetch(url, cacheKey, stopAfter));
+  }
+
+  private Response fetch(String url, String cacheKey, String... stopAfter) throws IOException {
+    ResponseCache cache = ResponseCache.getInstance();
+    ResponseCache.Entry cached = cache.get(cacheKey);
+    if (cached != null && cached.isFresh()) {
+      cache.recordHit(cached);
+      return new Response(cached.body, cached.charset);
+    }
+
+    HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+        .header("User-Agent", USER_AGENT)
+        .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+        .header("Accept-Language", "en-US,en;q=0.9")
+        .header("Accept-Encoding", "gzip")
+        .GET();
+
+    // revalidate the cached copy instead of downloading it again
+    if (cached != null) {
+      if (!cached.etag.isEmpty()) {
+        builder.header("If-None-Match", cached.etag);
+      }
+      if (!cached.lastModified.isEmpty()) {
+        builder.header("If-Modified-Since", cached.lastModified);
+      }
+    }
+
+    HttpResponse<InputStream> response = send(builder);
+
+    try (InputStream is = response.body()) {
+      if (response.statusCode() == 304 && cached != null) {
+        LOGGER.debug("Not modified: {}", url);
+        cache.recordRevalidated(cached);
+        cache.put(cacheKey, new ResponseCache.Entry(cached.etag, cached.lastModified, cached.charset, expiresAt(response), cached.body));
+        return new Response(cached.body, cached.charset);
+      }
+
+      if (response.statusCode() < 200 || response.statusCode() >= 300) {
+        throw new HttpStatusException("HTTP error fetching URL", response.statusCode(), url);
+      }
+
+      byte[] body = readBody(decode(response, is), stopAfter, url);
+      String charset = charset(response);
+      LOGGER.debug("Fetched {} ({} bytes, {})", url, body.length, response.version());
+      cache.recordMiss(body.length);
+
+      ResponseCache.Entry entry = new ResponseCache.Entry(response.headers().firstValue("ETag").orElse(null),
+          response.headers().firstValue("Last-Modified").orElse(null), charset, expiresAt(response), body);
+      if (entry.hasValidators() || entry.isFresh()) {
+        cache.put(cacheKey, entry);
+      }
+      return new Response(body, charset);
+    }
+  }
+
+  /**
+   * Send the (idempotent) GET request through the throttle of its host. Connection errors, 429 and 5xx answers are
+   * retried with jittered exponential backoff (or after the Retry-After delay of the server); the answer of the last
+   * attempt is returned whatever its status. Every attempt gets what is left of the {@link Deadline} of the calling
+   * thread as its timeout, at most {@link #REQUEST_TIMEOUT}.
+   */
+  private HttpResponse<InputStream> send(HttpRequest.Builder builder) throws IOException {
+    HttpRequest request = builder.timeout(Deadline.timeout(REQUEST_TIMEOUT)).build();
+    HostThrottle throttle = HostThrottle.forHost(VixenSite.throttleKey(request.uri().getHost()));
+
+    for (int attempt = 1;; attempt++) {
+      if (attempt > 1) {
+        request = builder.timeout(Deadline.timeout(REQUEST_TIMEOUT)).build();
+      }
+      throttle.acquire();
+
+      HttpResponse<InputStream> response;
+      try {
+        response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+      }
+      catch (InterruptedException e) {
+        throttle.onCancelled();
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted while fetching " + request.uri());
+      }
+      catch (InterruptedIOException e) {
+        throttle.onCancelled();
+        throw e;
+      }
+      catch (HttpTimeoutException e) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+          // cut short by the time budget of the call, not the fault of the host
+          throttle.onCancelled();
+          throw new Deadline.DeadlineExceededException();
+        }
+        throttle.onServerError(0);
+        if (attempt >= MAX_ATTEMPTS) {
+          throw e;
+        }
+        LOGGER.debug("Attempt {} of {} timed out", attempt, request.uri());
+        backoff(attempt, 0, request);
+        continue;
+      }
+      catch (IOException e) {
+        throttle.onServerError(0);
+        if (attempt >= MAX_ATTEMPTS) {
+          throw e;
+        }
+        LOGGER.debug("Attempt {} of {} failed: {}", attempt, request.uri(), e.getMessage());
+        backoff(attempt, 0, request);
+        continue;
+      }
+
+      int status = response.statusCode();
+      if (status != 429 && status < 500) {
+        throttle.onSuccess();
+        return response;
+      }
+
+      long retryAfter = retryAfter(response);
+      if (status == 429) {
+        throttle.onThrottled(retryAfter);
+      }
+      else {
+        throttle.onServerError(retryAfter);
+      }
+      if (attempt >= MAX_ATTEMPTS || retryAfter > MAX_RETRY_AFTER) {
+        return response;
+      }
+
+      response.body().close();
+      LOGGER.debug("Attempt {} of {} answered with HTTP {}", attempt, request.uri(), status);
+      backoff(attempt, retryAfter, request);
+    }
+  }
+
+  private static void backoff(int attempt, long retryAfter, HttpRequest request) throws InterruptedIOException {
+    // full jitter: a random delay up to the exponential bound, so parallel retries do not hit the host at the same moment
+    long bound = Math.min(MAX_BACKOFF, INITIAL_BACKOFF << (attempt - 1));
+    long delay = Math.max(retryAfter, ThreadLocalRandom.current().nextLong(bound / 2, bound + 1));
+    // no retry if the time budget of the call does not cover the delay
+    Deadline.checkWait(TimeUnit.MILLISECONDS.toNanos(delay));
+    try {
+      Thread.sleep(delay);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while retrying " + request.uri());
+    }
+  }
+
+  /**
+   * the Retry-After header (seconds or HTTP date) in milliseconds; 0 if there is none
+   */
+  private static long retryAfter(HttpResponse<?> response) {
+    String value = response.headers().firstValue("Retry-After").orElse("").trim();
+    if (value.isEmpty()) {
+      return 0;
+    }
+
+    try {
+      return Math.max(0, Long.parseLong(value) * 1000);
+    }
+    catch (NumberFormatException e) {
+      // not a number of seconds, try a date
+    }
+    try {
+      return Math.max(0, ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - System.currentTimeMillis());
+    }
+    catch (DateTimeParseException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Normalize the URL for matching identical requests: lower case scheme and host, no default port, no fragment and no
+   * dot segments
+   */
+  static String normalizeUrl(String url) {
+    try {
+      URI uri = new URI(url).normalize();
+      if (uri.getScheme() == null || uri.getHost() == null) {
+        return url;
+      }
+
+      String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+      int port = uri.getPort();
+      if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+        port = -1;
+      }
+      String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+      return scheme + "://" + uri.getHost().toLowerCase(Locale.ROOT) + (port < 0 ? "" : ":" + port) + path
+          + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+    }
+    catch (URISyntaxException e) {
+      return url;
+    }
+  }
+
+  /**
+   * Read the body up to the end of the last marker (or completely if there are no markers or they are not found). The
+   * body must not exceed {@link #MAX_BODY_SIZE}.
+   */
+  private static byte[] readBody(InputStream is, String[] stopAfter, String url) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    int length = 0;
+    int marker = 0;
+    int matchedEnd = 0;
+    int scanned = 0;
+
+    int read;
+    while ((read = is.read(buffer, length, buffer.length - length)) != -1) {
+      length += read;
+
+      // look for the markers in the newly read bytes (with an overlap for markers spanning two reads)
+      while (marker < stopAfter.length) {
+        byte[] needle = stopAfter[marker].getBytes(StandardCharsets.US_ASCII);
+        int index = indexOf(buffer, length, needle, Math.max(matchedEnd, scanned - needle.length + 1));
+        if (index < 0) {
+          scanned = length;
+          break;
+        }
+        matchedEnd = index + needle.length;
+        scanned = matchedEnd;
+        marker++;
+      }
+
+      if (stopAfter.length > 0 && marker == stopAfter.length) {
+        LOGGER.debug("Stopped reading {} after {} bytes", url, matchedEnd);
+        return Arrays.copyOf(buffer, matchedEnd);
+      }
+
+      if (length == buffer.length) {
+        if (buffer.length >= MAX_BODY_SIZE) {
+          // a body of exactly the maximum size is fine, only one more byte is too much
+          if (is.read() == -1) {
+            break;
+          }
+          throw new IOException("response of " + url + " exceeds " + MAX_BODY_SIZE + " bytes");
+        }
+        buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, MAX_BODY_SIZE));
+      }
+    }
+
+    return Arrays.copyOf(buffer, length);
+  }
+
+  private static int indexOf(byte[] haystack, int length, byte[] needle, int from) {
+    outer: for (int i = from; i <= length - needle.length; i++) {
+      for (int j = 0; j < needle.length; j++) {
+        if (haystack[i + j] != needle[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  private static long expiresAt(HttpResponse<?> response) {
+    String cacheControl = response.headers().firstValue("Cache-Control").orElse("").toLowerCase(Locale.ROOT);
+    if (cacheControl.contains("no-cache") || cacheControl.contains("no-store")) {
+      return 0;
+    }
+
+    int index = cacheControl.indexOf("max-age=");
+    if (index < 0) {
+      return 0;
+    }
+
+    int end = index + 8;
+    while (end < cacheControl.length() && Character.isDigit(cacheControl.charAt(end))) {
+      end++;
+    }
+    try {
+      return System.currentTimeMillis() + Long.parseLong(cacheControl.substring(index + 8, end)) * 1000;
+    }
+    catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static InputStream decode(HttpResponse<?> response, InputStream is) throws IOException {
+    String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+    if ("gzip".equalsIgnoreCase(encoding.trim())) {
+      return new GZIPInputStream(is);
+    }
+    return is;
+  }
+
+  private static String charset(HttpResponse<?> response) {
+    String contentType = response.headers().firstValue("Content-Type").orElse("");
+    int index = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+    if (index < 0) {
+      // let Jsoup detect it from the document
+      return null;
+    }
+
+    String charset = contentType.substring(index + 8).trim();
+    int end = charset.indexOf(';');
+    if (end >= 0) {
+      charset = charset.substring(0, end).trim();
+    }
+    return charset.replace("\"", "");
+  }
+
+  /**
+   * reads a streamed response body, see {@link #read(String, BodyReader)}
+   */
+  @FunctionalInterface
+  interface BodyReader<T> {
+    T read(InputStream body) throws IOException;
+  }
+
+  /**
+   * a fetched response body together with its declared charset (may be null)
+   */
+  static class Response {
+    final byte[] body;
+    final String charset;
+
+    Response(byte[] body, String charset) {
+      this.body = body;
+      this.charset = charset;
+    }
+
+    /**
+     * parse the body as HTML document
+     *
+     * @param baseUri
+     *          the URL of the document, used to resolve relative links
+     */
+    Document parse(String baseUri) throws IOException {
+      return Jsoup.parse(new ByteArrayInputStream(body), charset, baseUri);
+    }
+  }
+}
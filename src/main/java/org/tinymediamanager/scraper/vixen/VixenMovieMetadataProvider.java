@@ -1,21 +1,41 @@
 package org.tinymediamanager.scraper.vixen;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -33,34 +53,131 @@ import org.tinymediamanager.scraper.interfaces.IMovieMetadataProvider;
 import org.tinymediamanager.scraper.util.StrgUtils;
 
 /**
- * The Vixen Movie Metadata Provider.
+ * The Vixen Movie Metadata Provider. The same engine scrapes every site of the Vixen network (see {@link VixenSite});
+ * every site is registered as its own provider, but all of them share the transport, the throttle and the caches.
  *
  * @author YourName
  */
 public class VixenMovieMetadataProvider implements IMovieMetadataProvider {
-  private static final Logger     LOGGER           = LoggerFactory.getLogger(VixenMovieMetadataProvider.class);
-  private static final String     ID               = "vixen";
-  private static final String     BASE_URL         = "https://www.vixen.com";
-  private static final String     SEARCH_URL       = BASE_URL + "/search?q=";
-  private final MediaProviderInfo providerInfo;
+  private static final Logger               LOGGER                 = LoggerFactory.getLogger(VixenMovieMetadataProvider.class);
+  private static final String               SEARCH_PATH            = "/search?q=";
+  // 只需要读取到这些标记为止，后面的页面内容不再下载和解析
+  private static final String[]             DETAIL_PAGE_END        = { "id=\"__NEXT_DATA__\"", "</script>" };
+  private static final String[]             MODEL_PAGE_END         = { "</aside>" };
+  private static final SingleFlight<String> ACTOR_PHOTOS_IN_FLIGHT = new SingleFlight<>();
+  // 单词回退搜索：最多同时进行的请求数，以及达到多少分数即可停止其余搜索
+  private static final int                  FALLBACK_PARALLELISM   = 3;
+  private static final float                FALLBACK_CONFIDENCE    = 1.0f;
+  // 目录索引的最佳结果至少包含完整的搜索词时，才不再搜索网站
+  private static final float                CATALOG_CONFIDENCE     = 1.0f;
+  private static final ExecutorService      FALLBACK_EXECUTOR      = createFallbackExecutor();
+  private final VixenSite                   site;
+  private final String                      baseUrl;
+  private final MediaProviderInfo           providerInfo;
+  private ThreadPoolExecutor                actorExecutor;
 
   public VixenMovieMetadataProvider() {
+    this(VixenSite.VIXEN);
+  }
+
+  /**
+   * Create the provider for the given site of the network
+   *
+   * @param site
+   *          the site to scrape
+   */
+  protected VixenMovieMetadataProvider(VixenSite site) {
+    this(site, site.getBaseUrl());
+  }
+
+  /**
+   * Create the provider for the given site, scraping it from another address (e.g. a local replay server)
+   *
+   * @param site
+   *          the site to scrape
+   * @param baseUrl
+   *          the base URL to scrape the site from
+   */
+  VixenMovieMetadataProvider(VixenSite site, String baseUrl) {
+    this.site = site;
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
     providerInfo = createMediaProviderInfo();
   }
 
   private MediaProviderInfo createMediaProviderInfo() {
-    MediaProviderInfo info = new MediaProviderInfo(ID, "movie", "Vixen",
-        "A scraper for Vixen movies",
-        VixenMovieMetadataProvider.class.getResource("/org/tinymediamanager/scraper/vixen/vixen_logo.svg"));
+    // 没有单独图标的网站使用Vixen的图标
+    URL logo = VixenMovieMetadataProvider.class.getResource("/org/tinymediamanager/scraper/vixen/" + site.getId() + "_logo.svg");
+    if (logo == null) {
+      logo = VixenMovieMetadataProvider.class.getResource("/org/tinymediamanager/scraper/vixen/vixen_logo.svg");
+    }
+    MediaProviderInfo info = new MediaProviderInfo(site.getId(), "movie", site.getName(),
+        "A scraper for " + site.getName() + " movies", logo);
 
-    info.setResourceBundle(ResourceBundle.getBundle("org.tinymediamanager.scraper.vixen.messages"));
+    // 所有网站共用同一份文本（scraper.vixen.*）
+    info.setResourceBundle(new SiteMessages(ResourceBundle.getBundle("org.tinymediamanager.scraper.vixen.messages"), site.getId()));
 
-    // no configurable options here
+    // 并发获取演员照片的线程数上限，以及等待所有演员照片的最长时间
+    info.getConfig().addInteger("actorFetchParallelism", 4);
+    info.getConfig().addInteger("actorFetchTimeout", 30);
+    // 演员照片缓存有效期（天）
+    info.getConfig().addInteger("actorPhotoCacheDays", 30);
+    // 不等待未缓存的演员照片：本次刮削没有这些照片，后台获取后写入缓存供下次刮削使用
+    info.getConfig().addBoolean("lazyActorPhotos", false);
+    // 本地目录索引：启用后优先从本地索引搜索，过期后在后台重新抓取
+    info.getConfig().addBoolean("useCatalogIndex", false);
+    info.getConfig().addInteger("catalogMaxAgeDays", 7);
+    // 批量刮削时每个阶段的并发线程数
+    info.getConfig().addInteger("batchConcurrency", 4);
+    // 默认使用的图片尺寸（所有尺寸都会提供给tMM）
+    info.getConfig().addSelect("posterSize", new String[] { "small", "medium", "large", "original" }, "large");
+    info.getConfig().addSelect("fanartSize", new String[] { "small", "medium", "large", "original" }, "large");
+    info.getConfig().addSelect("actorPhotoSize", new String[] { "1x", "2x" }, "2x");
+    // 增量刷新：记录每个场景的指纹，未变化的场景不再解析页面和获取演员照片
+    info.getConfig().addBoolean("incrementalRefresh", false);
+    // 每次搜索或刮削的时间预算（秒），0表示不限制
+    info.getConfig().addInteger("timeBudget", 20);
+    // 在后台将封面和演员照片下载到本地，每张图片只下载一次
+    info.getConfig().addBoolean("prefetchImages", false);
+    // 以下设置作用于所有网站共用的缓存和统计，只在Vixen刮削器中提供，否则最后创建的刮削器会覆盖其他网站的值
+    if (site == VixenSite.VIXEN) {
+      // 页面缓存大小（MB），0表示禁用
+      info.getConfig().addInteger("pageCacheSize", 100);
+      // 定期在日志中输出刮削统计（分钟），0表示禁用；统计也可通过JMX查看
+      info.getConfig().addInteger("metricsLogInterval", 0);
+      // 定期保存缓存快照（分钟），重启后无需重新预热；0表示只在退出时保存
+      info.getConfig().addInteger("warmCacheInterval", 10);
+    }
     info.getConfig().load();
 
+    if (site == VixenSite.VIXEN) {
+      applyNetworkSettings(info);
+    }
+
     return info;
   }
 
+  /**
+   * Apply the options of the caches and metrics shared by all sites of the network. They are only offered by the Vixen
+   * provider, so the providers of the other sites cannot override them.
+   */
+  private static void applyNetworkSettings(MediaProviderInfo info) {
+    Integer metricsLogInterval = info.getConfig().getValueAsInteger("metricsLogInterval");
+    if (metricsLogInterval != null) {
+      ScraperMetrics.getInstance().setLogIntervalMinutes(metricsLogInterval);
+    }
+
+    // 只设置保存间隔，快照在第一次搜索或刮削时才读取
+    Integer warmCacheInterval = info.getConfig().getValueAsInteger("warmCacheInterval");
+    if (warmCacheInterval != null) {
+      WarmCache.getInstance().setIntervalMinutes(warmCacheInterval);
+    }
+
+    Integer pageCacheSize = info.getConfig().getValueAsInteger("pageCacheSize");
+    if (pageCacheSize != null) {
+      ResponseCache.getInstance().setMaxBytes(Math.max(0, pageCacheSize) * 1024L * 1024L);
+    }
+  }
+
   @Override
   public MediaProviderInfo getProviderInfo() {
     return providerInfo;
@@ -71,33 +188,22 @@ public class VixenMovieMetadataProvider implements IMovieMetadataProvider {
     return true;
   }
 
-  /**
-   * Extract search keyword from filename using regex
-   * 
-   * @param filename
-   *          the filename to extract from
-   * @return the extracted search keyword
-   */
-  private String extractSearchKeyword(String filename) {
-    if (filename == null || filename.isEmpty()) {
-      return "";
-    }
+  @Override
+  public SortedSet<MediaSearchResult> search(MovieSearchAndScrapeOptions options) throws ScrapeException {
+    // 首次使用时恢复上次保存的缓存快照
+    WarmCache.restore();
 
-    // Pattern: Vixen.YY.MM.DD.Name.More.XXX...
-    // We want to extract "Name"
-    Pattern pattern = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{2}\\.(\\w+)\\.");
-    Matcher matcher = pattern.matcher(filename);
-    
-    if (matcher.find()) {
-      return matcher.group(1);
+    // 每次调用的时间预算，所有请求共用
+    Deadline.Scope scope = Deadline.enter(Deadline.afterSeconds(getConfigInteger("timeBudget", 20)));
+    try {
+      return searchWithinBudget(options);
+    }
+    finally {
+      scope.close();
     }
-    
-    // If pattern doesn't match, just return the filename
-    return filename;
   }
 
-  @Override
-  public SortedSet<MediaSearchResult> search(MovieSearchAndScrapeOptions options) throws ScrapeException {
+  private SortedSet<MediaSearchResult> searchWithinBudget(MovieSearchAndScrapeOptions options) throws ScrapeException {
     LOGGER.debug("searching for: {}", options);
     
     SortedSet<MediaSearchResult> results = new TreeSet<>();
@@ -106,10 +212,19 @@ public class VixenMovieMetadataProvider implements IMovieMetadataProvider {
     
     // 获取搜索关键词
     searchTerm = options.getSearchQuery();
+
+    // 文件名符合 Site.YY.MM.DD.Name... 格式时，直接通过发布日期和演员找到对应的影片，无需搜索
+    if (Boolean.TRUE.equals(providerInfo.getConfig().getValueAsBool("useCatalogIndex"))) {
+      MediaSearchResult resolved = resolveFilename(searchTerm);
+      if (resolved != null) {
+        results.add(resolved);
+        return results;
+      }
+    }
     
     // 尝试从搜索查询中提取关键词
     if (!searchTerm.isEmpty()) {
-      String extractedTerm = extractSearchKeyword(searchTerm);
+      String extractedTerm = VixenParserUtils.extractSearchKeyword(searchTerm);
       if (!extractedTerm.isEmpty()) {
         LOGGER.debug("Extracted search term from query: {}", extractedTerm);
         searchTerm = extractedTerm;
@@ -126,201 +241,323 @@ public class VixenMovieMetadataProvider implements IMovieMetadataProvider {
       return results;
     }
 
+    // 按URL合并各来源的结果，保留较高的分数
+    Map<String, MediaSearchResult> merged = new LinkedHashMap<>();
     try {
       // 预处理搜索词 - 移除特殊字符和多余空格
-      searchTerm = searchTerm.replaceAll("[^a-zA-Z0-9\\s]", " ").trim().replaceAll("\\s+", " ");
-      
-      // Encode search term for URL
-      String encodedSearch = URLEncoder.encode(searchTerm, StandardCharsets.UTF_8);
-      String searchUrl = SEARCH_URL + encodedSearch;
-      
-      LOGGER.debug("Searching Vixen with URL: {}", searchUrl);
-      
-      // Connect to search page and get HTML
-      Document doc = Jsoup.connect(searchUrl)
-          .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-          .timeout(15000) // 增加超时时间，确保有足够时间加载
-          .get();
-      
-      // 查找所有视频结果 - 使用更通用的选择器以捕获所有可能的结果
-      Elements videoItems = doc.select("a[href^='/videos/']");
-      
-      // 如果没有找到结果，尝试其他选择器
-      if (videoItems.isEmpty()) {
-        videoItems = doc.select("a[href*='/video/']");
+      searchTerm = VixenParserUtils.normalizeSearchTerm(searchTerm);
+
+      // 优先从本地目录索引中搜索；只有足够好的结果才跳过网站搜索，否则与网站的结果合并
+      if (Boolean.TRUE.equals(providerInfo.getConfig().getValueAsBool("useCatalogIndex"))) {
+        List<MediaSearchResult> catalogResults = searchCatalog(searchTerm);
+        if (!catalogResults.isEmpty() && catalogResults.get(0).getScore() >= CATALOG_CONFIDENCE) {
+          LOGGER.debug("Returning {} search results from the catalog index", catalogResults.size());
+          results.addAll(catalogResults);
+          return results;
+        }
+        mergeResults(merged, catalogResults);
+      }
+
+      Collection<MediaSearchResult> siteResults = searchSite(searchTerm).values();
+      mergeResults(merged, siteResults);
+
+      // 如果网站没有找到结果，但搜索词包含多个单词，并发使用单个单词进行搜索
+      if (siteResults.isEmpty() && searchTerm.contains(" ")) {
+        mergeResults(merged, searchFallback(searchTerm));
       }
       
-      LOGGER.debug("Found {} potential results", videoItems.size());
+      LOGGER.debug("Returning {} total search results", merged.size());
+      LOGGER.debug("Page cache: {}", ResponseCache.getInstance());
+    }
+    catch (Deadline.DeadlineExceededException e) {
+      // 时间预算用完时返回已有的结果
+      LOGGER.warn("Time budget exceeded while searching for '{}', returning {} results", searchTerm, merged.size());
+    }
+    catch (IOException e) {
+      LOGGER.error("Error searching for '{}': {}", searchTerm, e.getMessage());
+      throw new ScrapeException(e);
+    }
+
+    results.addAll(merged.values());
+    return results;
+  }
+
+  private static void mergeResults(Map<String, MediaSearchResult> merged, Collection<MediaSearchResult> results) {
+    for (MediaSearchResult result : results) {
+      MediaSearchResult existing = merged.get(result.getUrl());
+      if (existing == null || existing.getScore() < result.getScore()) {
+        merged.put(result.getUrl(), result);
+      }
+    }
+  }
+
+  /**
+   * Search the site for the given term
+   *
+   * @param searchTerm
+   *          the normalized search term
+   * @return the scored results keyed by their URL, in page order
+   * @throws IOException
+   *           if the search page could not be fetched
+   */
+  private Map<String, MediaSearchResult> searchSite(String searchTerm) throws IOException {
+    // Encode search term for URL
+    String encodedSearch = URLEncoder.encode(searchTerm, StandardCharsets.UTF_8);
+    String searchUrl = getBaseUrl() + SEARCH_PATH + encodedSearch;
+    
+    LOGGER.debug("Searching Vixen with URL: {}", searchUrl);
+    
+    // Connect to search page and get HTML
+    ScraperMetrics metrics = ScraperMetrics.getInstance();
+    Document doc = metrics.time(ScraperMetrics.Phase.SEARCH_FETCH, () -> VixenHttpClient.getInstance().getDocument(searchUrl));
+    return metrics.time(ScraperMetrics.Phase.SEARCH_SCORING, () -> parseSearchResults(doc, searchTerm));
+  }
+
+  /**
+   * Collect and score the video links of a search page
+   *
+   * @param doc
+   *          the search page
+   * @param searchTerm
+   *          the normalized search term
+   * @return the scored results keyed by their URL, in page order
+   */
+  Map<String, MediaSearchResult> parseSearchResults(Document doc, String searchTerm) {
+    Map<String, MediaSearchResult> results = new LinkedHashMap<>();
+
+    // 查找所有视频结果 - 使用更通用的选择器以捕获所有可能的结果
+    Elements videoItems = doc.select("a[href^='/videos/']");
+    
+    // 如果没有找到结果，尝试其他选择器
+    if (videoItems.isEmpty()) {
+      videoItems = doc.select("a[href*='/video/']");
+    }
+    
+    LOGGER.debug("Found {} potential results", videoItems.size());
+
+    // 搜索词只需预处理一次
+    VixenParserUtils.SearchScorer scorer = new VixenParserUtils.SearchScorer(searchTerm);
+    
+    // 处理每个搜索结果
+    for (Element videoItem : videoItems) {
+      // 提取搜索结果信息
+      String title = videoItem.select("h3").text();
       
-      // 处理每个搜索结果
-      for (Element videoItem : videoItems) {
-        // 提取搜索结果信息
-        String title = videoItem.select("h3").text();
-        
-        // 如果h3中没有标题，尝试其他可能包含标题的属性或元素
+      // 如果h3中没有标题，尝试其他可能包含标题的属性或元素
+      if (title.isEmpty()) {
+        title = videoItem.attr("title");
         if (title.isEmpty()) {
-          title = videoItem.attr("title");
+          title = videoItem.attr("alt");
           if (title.isEmpty()) {
-            title = videoItem.attr("alt");
-            if (title.isEmpty()) {
-              Element titleElement = videoItem.selectFirst("*[title]");
-              if (titleElement != null) {
-                title = titleElement.attr("title");
-              }
+            Element titleElement = videoItem.selectFirst("*[title]");
+            if (titleElement != null) {
+              title = titleElement.attr("title");
             }
           }
         }
-        
-        // 如果仍然没有找到标题，尝试从URL中提取
-        if (title.isEmpty()) {
-          String href = videoItem.attr("href");
-          if (href.contains("/videos/")) {
-            // 从URL中提取并格式化标题
-            String urlTitle = href.substring(href.lastIndexOf("/") + 1);
-            // 将连字符替换为空格，并首字母大写
-            title = urlTitle.replace("-", " ");
-            // 首字母大写
-            title = title.substring(0, 1).toUpperCase() + title.substring(1);
-          }
-        }
-        
-        // 如果标题仍为空，跳过此结果
-        if (title.isEmpty()) {
-          continue;
-        }
-        
-        String videoUrl = videoItem.attr("href");
-        // 确保URL是完整的
-        if (!videoUrl.startsWith("http")) {
-          videoUrl = BASE_URL + videoUrl;
-        }
-        
-        // 避免重复的结果
-        boolean isDuplicate = false;
-        for (MediaSearchResult existingResult : results) {
-          if (existingResult.getUrl().equals(videoUrl)) {
-            isDuplicate = true;
-            break;
-          }
-        }
-        
-        if (isDuplicate) {
-          continue;
-        }
-        
-        // 创建搜索结果
-        MediaSearchResult searchResult = new MediaSearchResult(ID, MediaType.MOVIE);
-        searchResult.setTitle(title);
-        searchResult.setUrl(videoUrl);
-        
-        // 从URL中提取ID
-        String id = videoUrl;
-        if (id.contains("/videos/")) {
-          id = id.substring(id.lastIndexOf("/") + 1);
+      }
+      
+      // 如果仍然没有找到标题，尝试从URL中提取
+      if (title.isEmpty()) {
+        // 从URL中提取并格式化标题
+        title = VixenParserUtils.titleFromUrl(videoItem.attr("href"));
+      }
+      
+      // 如果标题仍为空，跳过此结果
+      if (title.isEmpty()) {
+        continue;
+      }
+      
+      String videoUrl = videoItem.attr("href");
+      // 确保URL是完整的
+      if (!videoUrl.startsWith("http")) {
+        videoUrl = getBaseUrl() + videoUrl;
+      }
+      
+      // 避免重复的结果
+      if (results.containsKey(videoUrl)) {
+        continue;
+      }
+      
+      // 计算搜索分数
+      float score = scorer.score(title, videoUrl);
+      
+      // 添加到结果集
+      if (score > 0.0f) {
+        results.put(videoUrl, createSearchResult(title, videoUrl, score));
+        LOGGER.debug("Found search result: '{}' with score: {}", title, score);
+      }
+    }
+
+    return results;
+  }
+
+  /**
+   * Search the longer words of the search term separately, several at once (see {@link #FALLBACK_PARALLELISM}). As soon
+   * as one result matches a word with at least {@link #FALLBACK_CONFIDENCE} the remaining searches are cancelled.
+   *
+   * @param searchTerm
+   *          the normalized search term which did not yield any result
+   * @return the merged results with lowered scores (secondary matches)
+   */
+  private Collection<MediaSearchResult> searchFallback(String searchTerm) {
+    Map<String, MediaSearchResult> results = new HashMap<>();
+
+    // 只使用较长的单词，避免太泛泛的搜索
+    Set<String> words = new LinkedHashSet<>();
+    for (String word : searchTerm.split(" ")) {
+      if (word.length() > 3) {
+        words.add(word);
+      }
+    }
+    if (words.isEmpty()) {
+      return results.values();
+    }
+    ScraperMetrics.getInstance().recordFallbackSearch();
+
+    CompletionService<Map<String, MediaSearchResult>> completionService = new ExecutorCompletionService<>(FALLBACK_EXECUTOR);
+    Map<Future<Map<String, MediaSearchResult>>, String> searches = new HashMap<>();
+    Deadline deadline = Deadline.current();
+    for (String word : words) {
+      Callable<Map<String, MediaSearchResult>> search = () -> searchSite(word);
+      searches.put(completionService.submit(deadline != null ? deadline.wrap(search) : search), word);
+    }
+
+    try {
+      for (int i = 0; i < searches.size(); i++) {
+        Future<Map<String, MediaSearchResult>> done = deadline != null
+            ? completionService.poll(Math.max(0, deadline.remainingNanos()), TimeUnit.NANOSECONDS)
+            : completionService.take();
+        if (done == null) {
+          // 时间预算用完，取消其余的搜索
+          LOGGER.debug("Time budget exceeded, cancelling the remaining fallback searches");
+          break;
         }
-        searchResult.setId(id);
-        
-        // 计算搜索分数
-        float score = 0.0f;
-        
-        // 提取搜索词的单词
-        String[] searchWords = searchTerm.toLowerCase().split("\\s+");
-        String titleLower = title.toLowerCase();
-        
-        // 基础分数：标题包含搜索词
-        if (titleLower.contains(searchTerm.toLowerCase())) {
-          score += 1.0f; // 完全匹配加满分
-        } else {
-          // 部分匹配：按匹配单词数计分
-          int matchedWords = 0;
-          for (String word : searchWords) {
-            if (word.length() > 2 && titleLower.contains(word)) { // 忽略太短的单词
-              matchedWords++;
+        boolean confident = false;
+        try {
+          for (MediaSearchResult fallbackResult : done.get().values()) {
+            confident |= fallbackResult.getScore() >= FALLBACK_CONFIDENCE;
+            // 降低分数以表示这是次要匹配
+            fallbackResult.setScore(fallbackResult.getScore() * 0.7f);
+            MediaSearchResult existing = results.get(fallbackResult.getUrl());
+            if (existing == null || existing.getScore() < fallbackResult.getScore()) {
+              results.put(fallbackResult.getUrl(), fallbackResult);
+              LOGGER.debug("Added fallback result: '{}' with adjusted score: {}", fallbackResult.getTitle(), fallbackResult.getScore());
             }
           }
-          
-          if (matchedWords > 0) {
-            score += 0.5f + (0.5f * matchedWords / searchWords.length);
-          }
-        }
-        
-        // 额外加分：标题的开头部分匹配
-        if (titleLower.startsWith(searchTerm.toLowerCase())) {
-          score += 0.3f;
-        }
-        
-        // 额外加分：URL中包含搜索词，可能表示更相关
-        if (videoUrl.toLowerCase().contains(searchTerm.toLowerCase().replace(" ", "-"))) {
-          score += 0.2f;
         }
-        
-        // 如果分数为0但有一些单词匹配，给一个最小分数
-        if (score == 0.0f) {
-          for (String word : searchWords) {
-            if (word.length() > 3 && titleLower.contains(word)) {
-              score = 0.1f;
-              break;
-            }
-          }
+        catch (ExecutionException e) {
+          LOGGER.debug("Error during fallback search with word '{}': {}", searches.get(done), e.getCause().getMessage());
         }
-        
-        // 设置分数
-        searchResult.setScore(score);
-        
-        // 添加到结果集
-        if (score > 0.0f) {
-          results.add(searchResult);
-          LOGGER.debug("Found search result: '{}' with score: {}", title, score);
+
+        if (confident) {
+          LOGGER.debug("Fallback search with word '{}' is good enough, skipping the other words", searches.get(done));
+          break;
         }
       }
-      
-      // 如果没有找到结果，但搜索词包含多个单词，尝试使用单个单词进行搜索
-      if (results.isEmpty() && searchTerm.contains(" ")) {
-        String[] words = searchTerm.split("\\s+");
-        for (String word : words) {
-          if (word.length() > 3) { // 只使用较长的单词，避免太泛泛的搜索
-            // 创建一个新的媒体提供商来执行这个额外搜索，避免递归
-            VixenMovieMetadataProvider tempProvider = new VixenMovieMetadataProvider();
-            MovieSearchAndScrapeOptions tempOptions = new MovieSearchAndScrapeOptions();
-            tempOptions.setSearchQuery(word);
-            
-            try {
-              SortedSet<MediaSearchResult> fallbackResults = tempProvider.search(tempOptions);
-              for (MediaSearchResult fallbackResult : fallbackResults) {
-                // 降低分数以表示这是次要匹配
-                fallbackResult.setScore(fallbackResult.getScore() * 0.7f);
-                results.add(fallbackResult);
-                LOGGER.debug("Added fallback result: '{}' with adjusted score: {}", 
-                    fallbackResult.getTitle(), fallbackResult.getScore());
-              }
-            } catch (Exception e) {
-              LOGGER.debug("Error during fallback search with word '{}': {}", word, e.getMessage());
-            }
-            
-            // 只尝试第一个较长的单词，避免太多请求
-            if (!results.isEmpty()) {
-              break;
-            }
-          }
-        }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    finally {
+      // 不中断正在运行的搜索：它们的请求可能被其他调用合并共享（SingleFlight），中断会让其他等待者一起失败；
+      // 运行中的搜索由时间预算和请求超时限制，尚未开始的搜索不再执行
+      for (Future<Map<String, MediaSearchResult>> future : searches.keySet()) {
+        future.cancel(false);
       }
-      
-      LOGGER.debug("Returning {} total search results", results.size());
     }
-    catch (IOException e) {
-      LOGGER.error("Error searching for '{}': {}", searchTerm, e.getMessage());
-      throw new ScrapeException(e);
+
+    return results.values();
+  }
+
+  /**
+   * Search the local catalog index. A stale (or not yet crawled) index is refreshed in the background and not used
+   * until the crawl has finished.
+   *
+   * @param searchTerm
+   *          the normalized search term
+   * @return the search results from the index; empty if the index is stale or nothing matched
+   */
+  private List<MediaSearchResult> searchCatalog(String searchTerm) {
+    List<MediaSearchResult> results = new ArrayList<>();
+
+    CatalogIndex catalog = CatalogIndex.forSite(site);
+    if (catalog.isStale(TimeUnit.DAYS.toMillis(getConfigInteger("catalogMaxAgeDays", 7)))) {
+      catalog.refreshInBackground(getBaseUrl());
+      return results;
     }
 
+    for (CatalogIndex.ScoredEntry hit : catalog.search(searchTerm)) {
+      results.add(createSearchResult(hit.entry.title, hit.entry.url, hit.score));
+    }
     return results;
   }
 
+  /**
+   * Resolve a filename of this site following the naming convention Site.YY.MM.DD.Performer.Names... directly to its
+   * scene via the release date in the catalog index
+   *
+   * @param filename
+   *          the filename (search query)
+   * @return the search result for the scene or null if there is no unique match
+   */
+  private MediaSearchResult resolveFilename(String filename) {
+    FilenameResolver.ParsedFilename parsed = FilenameResolver.parse(filename);
+    if (parsed == null || parsed.site != site) {
+      // 其他网站的文件交给实时搜索
+      return null;
+    }
+
+    CatalogIndex catalog = CatalogIndex.forSite(site);
+    if (catalog.isStale(TimeUnit.DAYS.toMillis(getConfigInteger("catalogMaxAgeDays", 7)))) {
+      // scenes do not change their release date, so a stale index is still good enough for this lookup
+      catalog.refreshInBackground(getBaseUrl());
+    }
+
+    CatalogIndex.Entry entry = FilenameResolver.resolve(parsed, site, catalog);
+    if (entry == null) {
+      LOGGER.debug("Could not resolve '{}' by site {}, release date {} and performers {}", filename, parsed.site, parsed.releaseDate,
+          parsed.performerTokens);
+      return null;
+    }
+
+    LOGGER.debug("Resolved '{}' directly to {}", filename, entry.url);
+    return createSearchResult(entry.title, entry.url, 1.0f);
+  }
+
+  private MediaSearchResult createSearchResult(String title, String videoUrl, float score) {
+    // 创建搜索结果
+    MediaSearchResult searchResult = new MediaSearchResult(site.getId(), MediaType.MOVIE);
+    searchResult.setTitle(title);
+    searchResult.setUrl(videoUrl);
+
+    // 从URL中提取ID
+    String id = videoUrl;
+    if (id.contains("/videos/")) {
+      id = id.substring(id.lastIndexOf("/") + 1);
+    }
+    searchResult.setId(id);
+    searchResult.setScore(score);
+    return searchResult;
+  }
+
   @Override
   public MediaMetadata getMetadata(MovieSearchAndScrapeOptions options) throws ScrapeException {
+    WarmCache.restore();
+
+    // 每次调用的时间预算；用完时取消未完成的演员照片请求，返回已获取的元数据
+    Deadline.Scope scope = Deadline.enter(Deadline.afterSeconds(getConfigInteger("timeBudget", 20)));
+    try {
+      return getMetadataWithinBudget(options);
+    }
+    finally {
+      scope.close();
+    }
+  }
+
+  private MediaMetadata getMetadataWithinBudget(MovieSearchAndScrapeOptions options) throws ScrapeException {
     LOGGER.debug("getMetadata() - {}", options);
     
-    MediaMetadata md = new MediaMetadata(ID);
-    
     String url = options.getSearchResult().getUrl();
     
     if (url == null || url.isEmpty()) {
@@ -328,136 +565,508 @@ public class VixenMovieMetadataProvider implements IMovieMetadataProvider {
     }
     
     try {
-      // Connect to detail page and get HTML
-      Document doc = Jsoup.connect(url)
-          .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-          .timeout(10000)
-          .get();
+      // 增量刷新：场景未变化时直接使用上次提取的结果
+      if (Boolean.TRUE.equals(providerInfo.getConfig().getValueAsBool("incrementalRefresh"))) {
+        return refreshMetadata(url, options);
+      }
+
+      VixenScene scene = fetchScene(url);
+
+      if (isLazyActorPhotos()) {
+        return buildMetadataLazily(scene, url, options, null);
+      }
+
+      // 并发获取所有演员照片
+      List<String> photoUrls = getActorPhotoUrls(getPerformerUrls(scene));
+
+      return buildMetadata(scene, url, options, photoUrls);
+    }
+    catch (IOException e) {
+      LOGGER.error("Error getting metadata: {}", e.getMessage());
+      throw new ScrapeException(e);
+    }
+  }
+
+  /**
+   * Get the metadata of a scene which may have been scraped before. The detail page is revalidated with a conditional
+   * request; if it did not change, the stored scene and performer photos are used without parsing the page. If the page
+   * changed but the extracted fields did not, only the performer pages are skipped.
+   *
+   * @param url
+   *          the URL of the detail page
+   * @param options
+   *          the scrape options
+   * @return the metadata
+   * @throws IOException
+   *           if the page could not be fetched
+   */
+  private MediaMetadata refreshMetadata(String url, MovieSearchAndScrapeOptions options) throws IOException {
+    // 不同网站可能有同名的场景
+    String sceneId = site.getId() + "/" + url.substring(url.lastIndexOf("/") + 1);
+    SceneStore store = SceneStore.getInstance();
+    SceneStore.Entry stored = store.get(sceneId);
+    // 演员照片的有效期与演员照片缓存一致
+    if (stored != null && (!stored.url.equals(url)
+        || stored.storedAt + getActorPhotoTtl() < System.currentTimeMillis())) {
+      stored = null;
+    }
+
+    VixenHttpClient.Response page = ScraperMetrics.getInstance().time(ScraperMetrics.Phase.DETAIL_FETCH,
+        () -> VixenHttpClient.getInstance().get(url, DETAIL_PAGE_END));
+    String pageFingerprint = SceneStore.pageFingerprint(page);
+    if (stored != null && stored.pageFingerprint.equals(pageFingerprint) && stored.hasAllPhotos()) {
+      LOGGER.debug("Scene {} is unchanged, using the stored metadata", sceneId);
+      return buildMetadata(stored.scene, url, options, stored.photoUrls);
+    }
+
+    VixenScene scene = parseScene(page.parse(url));
+    String fieldsFingerprint = SceneStore.fieldsFingerprint(scene);
+
+    List<String> photoUrls;
+    long storedAt;
+    if (stored != null && stored.fieldsFingerprint.equals(fieldsFingerprint) && stored.hasAllPhotos()) {
+      LOGGER.debug("Fields of scene {} are unchanged, using the stored actor photos", sceneId);
+      photoUrls = stored.photoUrls;
+      storedAt = stored.storedAt;
+    }
+    else if (isLazyActorPhotos()) {
+      // 演员照片在后台获取完成后才保存场景
+      return buildMetadataLazily(scene, url, options,
+          resolved -> store.put(sceneId, new SceneStore.Entry(url, pageFingerprint, fieldsFingerprint, System.currentTimeMillis(), scene, resolved)));
+    }
+    else {
+      photoUrls = getActorPhotoUrls(getPerformerUrls(scene));
+      storedAt = System.currentTimeMillis();
+    }
+
+    store.put(sceneId, new SceneStore.Entry(url, pageFingerprint, fieldsFingerprint, storedAt, scene, photoUrls));
+    return buildMetadata(scene, url, options, photoUrls);
+  }
+
+  /**
+   * Build the metadata without waiting for the performer pages: performers get their name, role and profile URL right
+   * away, but a photo only if it is already cached. The missing photos are resolved in the background into the actor
+   * photo cache and written into the actors of the returned metadata as soon as they arrive; an actor read before its
+   * photo arrived simply has none (the URL is set with a single reference write).
+   *
+   * @param scene
+   *          the extracted scene
+   * @param url
+   *          the URL of the detail page
+   * @param options
+   *          the scrape options
+   * @param onResolved
+   *          receives the remote photo URLs of all performers in cast order once they are resolved (may be null)
+   * @return the metadata
+   */
+  private MediaMetadata buildMetadataLazily(VixenScene scene, String url, MovieSearchAndScrapeOptions options,
+      Consumer<List<String>> onResolved) {
+    List<String> performerUrls = getPerformerUrls(scene);
+    String[] photoUrls = new String[performerUrls.size()];
+    List<Integer> missing = new ArrayList<>();
+    for (int i = 0; i < performerUrls.size(); i++) {
+      String performerUrl = performerUrls.get(i);
+      String cachedUrl = performerUrl.isEmpty() ? "" : ActorPhotoCache.getInstance().get(actorPhotoCacheKey(performerUrl), getActorPhotoTtl());
+      if (cachedUrl == null) {
+        missing.add(i);
+        photoUrls[i] = "";
+      }
+      else {
+        photoUrls[i] = cachedUrl;
+      }
+    }
+
+    MediaMetadata md = buildMetadata(scene, url, options, Arrays.asList(photoUrls.clone()));
+    // buildMetadata adds one actor per performer in cast order
+    List<org.tinymediamanager.core.entities.Person> actors = new ArrayList<>();
+    for (org.tinymediamanager.core.entities.Person person : md.getCastMembers()) {
+      if (person.getType() == org.tinymediamanager.core.entities.Person.Type.ACTOR) {
+        actors.add(person);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      if (onResolved != null) {
+        onResolved.accept(Arrays.asList(photoUrls));
+      }
+      return md;
+    }
+
+    LOGGER.debug("Resolving {} actor photos of {} in the background", missing.size(), url);
+    List<CompletableFuture<Void>> futures = new ArrayList<>(missing.size());
+    for (int i : missing) {
+      // 后台请求不受本次调用的时间预算限制
+      futures.add(CompletableFuture.supplyAsync(() -> getActorPhotoUrl(performerUrls.get(i)), getActorExecutor()).thenAccept(photoUrl -> {
+        // 场景存储只保存远程URL，本地图片可能已被清理
+        photoUrls[i] = photoUrl;
+        if (!photoUrl.isEmpty() && i < actors.size()) {
+          actors.get(i).setThumbUrl(prefetch(photoUrl));
+        }
+      }));
+    }
+
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> {
+      if (error != null) {
+        LOGGER.debug("Error resolving actor photos of {}: {}", url, error.getMessage());
+        return;
+      }
+      if (onResolved != null) {
+        onResolved.accept(Arrays.asList(photoUrls));
+      }
+    });
+    return md;
+  }
+
+  private boolean isLazyActorPhotos() {
+    return Boolean.TRUE.equals(providerInfo.getConfig().getValueAsBool("lazyActorPhotos"));
+  }
+
+  /**
+   * Scrape many movies at once. The movies pass through a pipeline of stages (resolve, fetch, parse, performers) which
+   * run concurrently, see the "batchConcurrency" option; pages and performer photos shared by several movies are only
+   * fetched once. Every result is handed to the callback as soon as it is available, so the callback must be thread
+   * safe. The batch always scrapes the whole scene: the "timeBudget", "incrementalRefresh" and "lazyActorPhotos" options
+   * only apply to {@link #getMetadata(MovieSearchAndScrapeOptions)}.
+   *
+   * @param options
+   *          the scrape options of all movies; movies without a search result URL are searched first
+   * @param callback
+   *          receives the metadata (or the error) of every movie
+   * @throws ScrapeException
+   *           if the batch was interrupted
+   */
+  public void scrapeBatch(List<MovieSearchAndScrapeOptions> options, BatchCallback callback) throws ScrapeException {
+    LOGGER.debug("scrapeBatch() - {} movies", options.size());
+    WarmCache.restore();
+
+    try {
+      new BatchScraper(this, getActorExecutor(), getConfigInteger("batchConcurrency", 4)).scrape(options, callback);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ScrapeException(e);
+    }
+  }
+
+  /**
+   * Receives the results of {@link #scrapeBatch(List, BatchCallback)}
+   */
+  public interface BatchCallback {
+    /**
+     * called once the metadata of a movie is available
+     */
+    void onResult(MovieSearchAndScrapeOptions options, MediaMetadata metadata);
+
+    /**
+     * called if a movie could not be scraped
+     */
+    void onError(MovieSearchAndScrapeOptions options, ScrapeException exception);
+  }
+
+  /**
+   * Fetch the detail page at the given URL and extract the scene from it
+   *
+   * @param url
+   *          the URL of the detail page
+   * @return the extracted scene
+   * @throws IOException
+   *           if the page could not be fetched
+   */
+  VixenScene fetchScene(String url) throws IOException {
+    return parseScene(fetchDetailPage(url));
+  }
+
+  /**
+   * Fetch the detail page at the given URL, reading only up to the embedded page data
+   */
+  Document fetchDetailPage(String url) throws IOException {
+    // Connect to detail page and get HTML
+    return ScraperMetrics.getInstance().time(ScraperMetrics.Phase.DETAIL_FETCH,
+        () -> VixenHttpClient.getInstance().getDocument(url, DETAIL_PAGE_END));
+  }
+
+  /**
+   * Extract the scene from the given detail page
+   *
+   * @param doc
+   *          the detail page
+   * @return the extracted scene
+   */
+  VixenScene parseScene(Document doc) {
+    long start = System.nanoTime();
+
+    // 优先从Next.js内嵌的__NEXT_DATA__中读取，缺失的字段再用页面选择器补充
+    VixenScene scene = NextDataExtractor.extract(doc, getBaseUrl());
+    if (scene == null) {
+      LOGGER.debug("No __NEXT_DATA__ found, falling back to the page selectors");
+      scene = new VixenScene();
+    }
+    if (!scene.isComplete()) {
+      extractFromPage(doc, scene);
+    }
+    ScraperMetrics.getInstance().record(ScraperMetrics.Phase.DETAIL_PARSE, start);
+    return scene;
+  }
+
+  /**
+   * @return the profile URLs of all performers of the scene, in cast order (empty strings for performers without one)
+   */
+  static List<String> getPerformerUrls(VixenScene scene) {
+    List<String> performerUrls = new ArrayList<>();
+    if (scene.models != null) {
+      for (VixenScene.Model model : scene.models) {
+        performerUrls.add(model.url);
+      }
+    }
+    return performerUrls;
+  }
+
+  /**
+   * Map the extracted scene onto tMM's metadata
+   *
+   * @param scene
+   *          the extracted scene
+   * @param url
+   *          the URL of the detail page
+   * @param options
+   *          the scrape options
+   * @param photoUrls
+   *          the photo URLs of the performers in cast order (see {@link #getPerformerUrls(VixenScene)})
+   * @return the metadata
+   */
+  MediaMetadata buildMetadata(VixenScene scene, String url, MovieSearchAndScrapeOptions options, List<String> photoUrls) {
+    MediaMetadata md = new MediaMetadata(site.getId());
+
+    // Extract title
+    if (scene.title != null) {
+      String title = scene.title;
+      md.setTitle(title);
+      // 同时设置原始标题，确保NFO能正确导出标题
+      md.setOriginalTitle(title);
       
-      // Extract title
-      Element titleElement = doc.selectFirst("h1[data-test-component='VideoTitle']");
-      if (titleElement != null) {
-        String title = titleElement.text();
-        md.setTitle(title);
-        // 同时设置原始标题，确保NFO能正确导出标题
-        md.setOriginalTitle(title);
+      // (2) 检查标题是否以数字结尾，如果是，创建一个系列名称
+      if (title.length() > 0 && Character.isDigit(title.charAt(title.length() - 1))) {
+        // 找到最后一个非数字字符的位置
+        int lastNonDigitIndex = title.length() - 1;
+        while (lastNonDigitIndex >= 0 && Character.isDigit(title.charAt(lastNonDigitIndex))) {
+          lastNonDigitIndex--;
+        }
         
-        // (2) 检查标题是否以数字结尾，如果是，创建一个系列名称
-        if (title.length() > 0 && Character.isDigit(title.charAt(title.length() - 1))) {
-          // 找到最后一个非数字字符的位置
-          int lastNonDigitIndex = title.length() - 1;
-          while (lastNonDigitIndex >= 0 && Character.isDigit(title.charAt(lastNonDigitIndex))) {
-            lastNonDigitIndex--;
-          }
-          
-          // 提取系列名称（去掉末尾的数字）
-          if (lastNonDigitIndex >= 0) {
-            String setName = title.substring(0, lastNonDigitIndex + 1).trim();
-            if (!setName.isEmpty()) {
-              try {
-                // 使用setCollectionName方法设置系列名称
-                md.setCollectionName(setName);
-                LOGGER.debug("Added movie to set: {}", setName);
-              } catch (Exception e) {
-                LOGGER.debug("Could not set collection name: {}", e.getMessage());
-              }
+        // 提取系列名称（去掉末尾的数字）
+        if (lastNonDigitIndex >= 0) {
+          String setName = title.substring(0, lastNonDigitIndex + 1).trim();
+          if (!setName.isEmpty()) {
+            try {
+              // 使用setCollectionName方法设置系列名称
+              md.setCollectionName(setName);
+              LOGGER.debug("Added movie to set: {}", setName);
+            } catch (Exception e) {
+              LOGGER.debug("Could not set collection name: {}", e.getMessage());
             }
           }
         }
       }
+    }
+    
+    // Extract performers/actors
+    if (scene.models != null) {
+      List<org.tinymediamanager.core.entities.Person> actors = new ArrayList<>();
+      for (VixenScene.Model model : scene.models) {
+        String name = model.name;
+        org.tinymediamanager.core.entities.Person person = new org.tinymediamanager.core.entities.Person(org.tinymediamanager.core.entities.Person.Type.ACTOR, name);
+        
+        // 为演员设置ID以确保在NFO中正确导出
+        person.setId(site.getId(), name.hashCode());
+        
+        // 设置演员在tMM中的唯一标识符，以便系统能正确匹配演员
+        person.setName(name);
+        
+        // 设置演员的角色，如果没有特定角色，至少设置一个占位符
+        // 这对于确保NFO文件包含完整的演员信息很重要
+        person.setRole("Performer");
+        
+        // 如果能从Vixen页面提取演员的个人主页URL，也设置它
+        // 这可以帮助tMM更准确地匹配演员
+        String performerUrl = model.url;
+        if (!performerUrl.isEmpty()) {
+          // 设置演员主页URL作为ProfileUrl
+          person.setProfileUrl(performerUrl);
+        }
+        
+        // 重要：告诉tMM这个演员需要自动获取照片（如果API支持）
+        TmmCompat.enableAutoUpdate(person);
+        
+        actors.add(person);
+      }
+
+      // 按原始顺序写回演员照片，保证演员顺序稳定
+      for (int i = 0; i < actors.size(); i++) {
+        org.tinymediamanager.core.entities.Person person = actors.get(i);
+        String photoUrl = i < photoUrls.size() ? prefetch(photoUrls.get(i)) : "";
+        if (!photoUrl.isEmpty()) {
+          // 设置演员照片URL
+          person.setThumbUrl(photoUrl);
+          LOGGER.debug("Set thumb URL for actor {}: {}", person.getName(), photoUrl);
+        }
+
+        md.addCastMember(person);
+        LOGGER.debug("Added actor: {} with proper NFO attributes", person.getName());
+      }
+    }
+    
+    // Extract release date
+    if (scene.releaseDate != null) {
+      md.setReleaseDate(Date.from(scene.releaseDate.atStartOfDay(ZoneId.systemDefault()).toInstant()));
       
-      // Extract performers/actors
+      // (2) 添加年份设置，解决年份缺失问题
+      int year = scene.releaseDate.getYear();
+      md.setYear(year);
+      LOGGER.debug("Set year to {} from release date", year);
+    }
+    
+    // Extract director
+    if (scene.directors != null) {
+      for (String directorName : scene.directors) {
+        org.tinymediamanager.core.entities.Person director = new org.tinymediamanager.core.entities.Person(org.tinymediamanager.core.entities.Person.Type.DIRECTOR, directorName);
+        // 为导演设置ID以确保在NFO中正确导出
+        director.setId(site.getId(), directorName.hashCode());
+        md.addCastMember(director);
+      }
+    }
+    
+    // Extract plot/description
+    if (scene.plot != null) {
+      md.setPlot(scene.plot);
+    }
+    
+    // (3) 获取实际播放时长
+    if (scene.runtime != null) {
+      md.setRuntime(scene.runtime);
+    } else {
+      // 未找到运行时间或无法解析时，使用默认值
+      md.setRuntime(35);
+    }
+    
+    // Extract artwork - 所有尺寸都提供给tMM，默认使用的尺寸可按类型配置
+    String artworkLanguage = null;
+    // 语言可能需要设置，如果API支持
+    try {
+      artworkLanguage = options.getLanguage().getLanguage();
+    }
+    catch (Exception e) {
+      LOGGER.debug("Could not get language for artwork: {}", e.getMessage());
+    }
+
+    MediaArtwork poster = addArtwork(md, MediaArtwork.MediaArtworkType.POSTER, scene.poster, getConfigText("posterSize", "large"),
+        artworkLanguage);
+    if (poster != null) {
+      poster.setDefaultUrl(prefetch(poster.getDefaultUrl()));
+    }
+    if (scene.gallery != null) {
+      // 场景剧照作为背景图
+      for (List<VixenScene.Image> still : scene.gallery) {
+        addArtwork(md, MediaArtwork.MediaArtworkType.BACKGROUND, still, getConfigText("fanartSize", "large"), artworkLanguage);
+      }
+    }
+    
+    // (4) 设置正确的类型：直接设置为Porn，API不支持时回退到EROTIC
+    TmmCompat.addGenre(md, "Porn", org.tinymediamanager.core.entities.MediaGenres.EROTIC);
+    
+    // (5) 设置语言为English（使用"en"而不是"English"）
+    TmmCompat.setLanguage(md, "en");
+    
+    // 设置内容评级
+    md.addCertification(org.tinymediamanager.scraper.entities.MediaCertification.US_NC17);
+    
+    // (1) 获取实际评分值
+    if (scene.rating != null) {
+      // 创建评分对象
+      MediaRating rating = new MediaRating(site.getId());
+      rating.setMaxValue(10);
+      rating.setRating(scene.rating);
+      rating.setVotes(1); // 默认投票数为1
+      md.addRating(rating);
+      LOGGER.debug("Set rating to {} from webpage", scene.rating);
+    } else {
+      // 未找到评分或无法解析时，使用默认评分
+      MediaRating defaultRating = new MediaRating(site.getId());
+      defaultRating.setMaxValue(10);
+      defaultRating.setRating(7.5f);
+      defaultRating.setVotes(1);
+      md.addRating(defaultRating);
+    }
+    
+    // 设置元数据ID，确保能被正确识别
+    md.setId(site.getId(), url.substring(url.lastIndexOf("/") + 1));
+
+    return md;
+  }
+
+  /**
+   * Fill the fields of the scene which are still missing with the CSS selectors of the rendered page
+   *
+   * @param doc
+   *          the detail page
+   * @param scene
+   *          the scene to complete
+   */
+  private void extractFromPage(Document doc, VixenScene scene) {
+    // Extract title
+    if (scene.title == null) {
+      Element titleElement = doc.selectFirst("h1[data-test-component='VideoTitle']");
+      if (titleElement != null) {
+        scene.title = titleElement.text();
+      }
+    }
+
+    // Extract performers/actors
+    if (scene.models == null) {
       Element performersElement = doc.selectFirst("div[data-test-component='VideoModels']");
       if (performersElement != null) {
-        Elements performers = performersElement.select("a");
-        for (Element performer : performers) {
-          String name = performer.text();
-          org.tinymediamanager.core.entities.Person person = new org.tinymediamanager.core.entities.Person(org.tinymediamanager.core.entities.Person.Type.ACTOR, name);
-          
-          // 为演员设置ID以确保在NFO中正确导出
-          person.setId(ID, name.hashCode());
-          
-          // 设置演员在tMM中的唯一标识符，以便系统能正确匹配演员
-          person.setName(name);
-          
-          // 设置演员的角色，如果没有特定角色，至少设置一个占位符
-          // 这对于确保NFO文件包含完整的演员信息很重要
-          person.setRole("Performer");
-          
-          // 如果能从Vixen页面提取演员的个人主页URL，也设置它
-          // 这可以帮助tMM更准确地匹配演员
+        scene.models = new ArrayList<>();
+        for (Element performer : performersElement.select("a")) {
           String performerUrl = performer.attr("href");
-          if (performerUrl != null && !performerUrl.isEmpty()) {
-            if (!performerUrl.startsWith("http")) {
-              performerUrl = BASE_URL + performerUrl;
-            }
-            // 设置演员主页URL作为ProfileUrl
-            person.setProfileUrl(performerUrl);
-            
-            // 从演员个人页面获取照片URL
-            String photoUrl = getActorPhotoUrl(performerUrl);
-            if (!photoUrl.isEmpty()) {
-              // 设置演员照片URL
-              person.setThumbUrl(photoUrl);
-              LOGGER.debug("Set thumb URL for actor {}: {}", name, photoUrl);
-            }
+          if (!performerUrl.isEmpty() && !performerUrl.startsWith("http")) {
+            performerUrl = getBaseUrl() + performerUrl;
           }
-          
-          // 重要：告诉tMM这个演员需要自动获取照片
-          // 方法1：尝试设置特殊标志（如果API支持）
-          try {
-            java.lang.reflect.Method setAutoUpdateMethod = person.getClass().getMethod("setAutoUpdateEnabled", boolean.class);
-            if (setAutoUpdateMethod != null) {
-              setAutoUpdateMethod.invoke(person, true);
-              LOGGER.debug("Enabled auto-update for actor {}", name);
-            }
-          } catch (Exception e) {
-            LOGGER.debug("Could not set auto-update flag for actor {}: {}", name, e.getMessage());
-          }
-          
-          md.addCastMember(person);
-          LOGGER.debug("Added actor: {} with proper NFO attributes", name);
+          scene.models.add(new VixenScene.Model(performer.text(), performerUrl));
         }
       }
-      
-      // Extract release date
+    }
+
+    // Extract release date
+    if (scene.releaseDate == null) {
       Element dateElement = doc.selectFirst("span[data-test-component='ReleaseDateFormatted']");
       if (dateElement != null) {
         String dateString = dateElement.text();
         try {
-          SimpleDateFormat parser = new SimpleDateFormat("MMMM dd, yyyy", Locale.US);
-          Date releaseDate = parser.parse(dateString);
-          md.setReleaseDate(releaseDate);
-          
-          // (2) 添加年份设置，解决年份缺失问题
-          SimpleDateFormat yearFormat = new SimpleDateFormat("yyyy", Locale.US);
-          int year = Integer.parseInt(yearFormat.format(releaseDate));
-          md.setYear(year);
-          LOGGER.debug("Set year to {} from release date", year);
+          scene.releaseDate = VixenParserUtils.parseReleaseDate(dateString);
         }
-        catch (ParseException e) {
+        catch (DateTimeParseException e) {
           LOGGER.warn("Could not parse date: {}", e.getMessage());
         }
       }
-      
-      // Extract director
+    }
+
+    // Extract director
+    if (scene.directors == null) {
       Element directorElement = doc.selectFirst("span[data-test-component='DirectorText']");
       if (directorElement != null) {
-        String directorName = directorElement.text();
-        org.tinymediamanager.core.entities.Person director = new org.tinymediamanager.core.entities.Person(org.tinymediamanager.core.entities.Person.Type.DIRECTOR, directorName);
-        // 为导演设置ID以确保在NFO中正确导出
-        director.setId(ID, directorName.hashCode());
-        md.addCastMember(director);
+        scene.directors = new ArrayList<>();
+        scene.directors.add(directorElement.text());
       }
-      
-      // Extract plot/description
+    }
+
+    // Extract plot/description
+    if (scene.plot == null) {
       Element plotElement = doc.selectFirst("div.PlaybackContent__StyledDescription-sc-56y4pr-15 p");
       if (plotElement != null) {
-        String plot = plotElement.text();
-        md.setPlot(plot);
+        scene.plot = plotElement.text();
       }
-      
-      // (3) 获取实际播放时长
+    }
+
+    // 获取实际播放时长
+    if (scene.runtime == null) {
       Element runtimeElement = doc.selectFirst("span[data-test-component='RunLengthFormatted']");
       if (runtimeElement != null) {
         String runtimeStr = runtimeElement.text();
@@ -467,244 +1076,454 @@ public class VixenMovieMetadataProvider implements IMovieMetadataProvider {
           try {
             int minutes = Integer.parseInt(timeParts[0]);
             // 如果秒数超过30，则向上取整分钟数
-            if (timeParts.length > 1 && Integer.parseInt(timeParts[1]) > 30) {
+            if (Integer.parseInt(timeParts[1]) > 30) {
               minutes++;
             }
-            // 设置运行时间（分钟）
-            md.setRuntime(minutes);
+            scene.runtime = minutes;
             LOGGER.debug("Set runtime to {} minutes from {}", minutes, runtimeStr);
           } catch (NumberFormatException e) {
             LOGGER.warn("Could not parse runtime: {}", e.getMessage());
-            // 使用默认值
-            md.setRuntime(35);
           }
-        } else {
-          // 无法解析时，使用默认值
-          md.setRuntime(35);
         }
-      } else {
-        // 未找到运行时间元素，使用默认值
-        md.setRuntime(35);
       }
-      
-      // Extract artwork
+    }
+
+    // Extract artwork
+    if (scene.poster == null) {
       Element artworkElement = doc.selectFirst("img.ProgressiveImage__StyledImg-ptxr6s-2");
       if (artworkElement != null) {
-        String artworkUrl = "";
-        
-        // Try to get high-res image from srcset
-        String srcset = artworkElement.attr("srcset");
-        if (!srcset.isEmpty()) {
-          // Extract the highest resolution image URL from srcset
-          String[] srcsetParts = srcset.split(", ");
-          if (srcsetParts.length > 0) {
-            String lastPart = srcsetParts[srcsetParts.length - 1];
-            artworkUrl = lastPart.split(" ")[0];
-          }
-        }
-        
-        // Fallback to src if srcset didn't work
-        if (artworkUrl.isEmpty()) {
-          artworkUrl = artworkElement.attr("src");
-        }
-        
-        if (!artworkUrl.isEmpty()) {
-          // Add the poster to the metadata
-          MediaArtwork ma = new MediaArtwork(ID, MediaArtwork.MediaArtworkType.POSTER);
-          ma.setPreviewUrl(artworkUrl);
-          
-          // 语言可能需要设置，如果API支持
-          try {
-            ma.setLanguage(options.getLanguage().getLanguage());
-          }
-          catch (Exception e) {
-            LOGGER.debug("Could not set language for artwork: {}", e.getMessage());
-          }
-          
-          md.addMediaArt(ma);
-        }
+        scene.poster = imageSizes(artworkElement);
       }
-      
-      // (4) 设置正确的类型：直接设置为Porn
-      try {
-        // 尝试使用反射直接添加Porn类型
-        try {
-          java.lang.reflect.Method addGenreStringMethod = md.getClass().getMethod("addGenre", String.class);
-          if (addGenreStringMethod != null) {
-            addGenreStringMethod.invoke(md, "Porn");
-            LOGGER.debug("Added 'Porn' genre using reflection");
-          } else {
-            // 回退到使用枚举
-            md.addGenre(org.tinymediamanager.core.entities.MediaGenres.EROTIC);
-            LOGGER.debug("Added FANTASY genre as fallback");
+    }
+
+    // 场景剧照
+    if (scene.gallery == null) {
+      Elements stills = doc.select("div[data-test-component='VideoCarousel'] img");
+      if (!stills.isEmpty()) {
+        scene.gallery = new ArrayList<>();
+        for (Element still : stills) {
+          List<VixenScene.Image> sizes = imageSizes(still);
+          if (!sizes.isEmpty()) {
+            scene.gallery.add(sizes);
           }
-        } catch (Exception e) {
-          // 如果反射失败，使用枚举值
-          md.addGenre(org.tinymediamanager.core.entities.MediaGenres.EROTIC);
-          LOGGER.debug("Added FANTASY genre after reflection failed: {}", e.getMessage());
         }
-      } catch (Exception e) {
-        LOGGER.debug("Failed to set any genre: {}", e.getMessage());
-      }
-      
-      // (5) 设置语言为English - 但不使用addValue方法
-      try {
-        // 使用setLanguage方法尝试设置语言为English
-        java.lang.reflect.Method setLanguageMethod = md.getClass().getMethod("setLanguage", String.class);
-        setLanguageMethod.invoke(md, "en");  // 使用"en"而不是"English"
-        LOGGER.debug("Set language to 'en' using setLanguage");
-      } catch (Exception e1) {
-        // 如果setLanguage方法失败，记录错误并继续
-        LOGGER.debug("Could not set language: {}", e1.getMessage());
       }
-      
-      // 设置内容评级
-      md.addCertification(org.tinymediamanager.scraper.entities.MediaCertification.US_NC17);
-      
-      // (1) 获取实际评分值
+    }
+
+    // 获取实际评分值
+    if (scene.rating == null) {
       Element ratingElement = doc.selectFirst("span[data-test-component='RatingNumber']");
       if (ratingElement != null) {
-        String ratingStr = ratingElement.text();
         try {
-          float ratingValue = Float.parseFloat(ratingStr);
-          // 创建评分对象
-          MediaRating rating = new MediaRating(ID);
-          rating.setMaxValue(10);
-          rating.setRating(ratingValue);
-          rating.setVotes(1); // 默认投票数为1
-          md.addRating(rating);
-          LOGGER.debug("Set rating to {} from webpage", ratingValue);
+          scene.rating = Float.parseFloat(ratingElement.text());
         } catch (NumberFormatException e) {
           LOGGER.warn("Could not parse rating: {}", e.getMessage());
-          // 使用默认评分
-          MediaRating defaultRating = new MediaRating(ID);
-          defaultRating.setMaxValue(10);
-          defaultRating.setRating(7.5f);
-          defaultRating.setVotes(1);
-          md.addRating(defaultRating);
         }
-      } else {
-        // 未找到评分元素，使用默认评分
-        MediaRating defaultRating = new MediaRating(ID);
-        defaultRating.setMaxValue(10);
-        defaultRating.setRating(7.5f);
-        defaultRating.setVotes(1);
-        md.addRating(defaultRating);
       }
-      
-      // 设置元数据ID，确保能被正确识别
-      md.setId(ID, url.substring(url.lastIndexOf("/") + 1));
     }
-    catch (IOException e) {
-      LOGGER.error("Error getting metadata: {}", e.getMessage());
-      throw new ScrapeException(e);
+  }
+
+  /**
+   * all sizes of an image element: every srcset candidate, or the src if there is no srcset
+   */
+  private static List<VixenScene.Image> imageSizes(Element img) {
+    List<VixenScene.Image> sizes = new ArrayList<>();
+    for (VixenParserUtils.SrcsetCandidate candidate : VixenParserUtils.parseSrcset(img.attr("srcset"))) {
+      sizes.add(new VixenScene.Image(candidate.url, candidate.width, 0));
     }
-    
-    return md;
+
+    // Fallback to src if srcset didn't work
+    if (sizes.isEmpty() && !img.attr("src").isEmpty()) {
+      sizes.add(new VixenScene.Image(VixenParserUtils.unescape(img.attr("src")), 0, 0));
+    }
+    return sizes;
   }
 
   /**
-   * 从演员个人页面获取演员照片URL
+   * Add an artwork with all of its sizes, so tMM can download the size it needs
+   *
+   * @param md
+   *          the metadata to add the artwork to
+   * @param type
+   *          POSTER or BACKGROUND
+   * @param sizes
+   *          all sizes of the image
+   * @param preferredSize
+   *          the size to use by default: small, medium, large or original
+   * @param language
+   *          the language of the artwork (may be null)
+   * @return the added artwork or null if there are no sizes
+   */
+  private MediaArtwork addArtwork(MediaMetadata md, MediaArtwork.MediaArtworkType type, List<VixenScene.Image> sizes, String preferredSize,
+      String language) {
+    if (sizes == null || sizes.isEmpty()) {
+      return null;
+    }
+
+    MediaArtwork ma = new MediaArtwork(site.getId(), type);
+    VixenScene.Image smallest = sizes.get(0);
+    for (VixenScene.Image size : sizes) {
+      ma.addImageSize(size.width, size.height, size.url, sizeOrder(type, size.width));
+      if (size.width > 0 && (smallest.width == 0 || size.width < smallest.width)) {
+        smallest = size;
+      }
+    }
+
+    VixenScene.Image selected = selectSize(sizes, preferredSize);
+    ma.setPreviewUrl(smallest.url);
+    ma.setDefaultUrl(selected.url);
+    ma.setOriginalUrl(VixenScene.Image.widest(sizes).url);
+    ma.setSizeOrder(sizeOrder(type, selected.width));
+    if (language != null) {
+      ma.setLanguage(language);
+    }
+
+    md.addMediaArt(ma);
+    return ma;
+  }
+
+  /**
+   * With the "prefetchImages" option the image is downloaded once into the local image store; returns the local copy
+   * if it is already there
+   */
+  private String prefetch(String url) {
+    if (url == null || url.isEmpty() || !Boolean.TRUE.equals(providerInfo.getConfig().getValueAsBool("prefetchImages"))) {
+      return url;
+    }
+    return ImagePrefetcher.getInstance().localUrl(url);
+  }
+
+  /**
+   * the widest size which is not wider than the preferred size (small 480, medium 960, large 1920 pixels, original
+   * unlimited); the narrowest size if all are wider
+   */
+  static VixenScene.Image selectSize(List<VixenScene.Image> sizes, String preferredSize) {
+    int maxWidth;
+    switch (preferredSize == null ? "" : preferredSize) {
+      case "small":
+        maxWidth = 480;
+        break;
+
+      case "medium":
+        maxWidth = 960;
+        break;
+
+      case "original":
+        maxWidth = Integer.MAX_VALUE;
+        break;
+
+      default:
+        maxWidth = 1920;
+        break;
+    }
+
+    VixenScene.Image selected = null;
+    VixenScene.Image narrowest = null;
+    for (VixenScene.Image size : sizes) {
+      if (size.width <= maxWidth && (selected == null || size.width > selected.width)) {
+        selected = size;
+      }
+      if (narrowest == null || size.width < narrowest.width) {
+        narrowest = size;
+      }
+    }
+    return selected != null ? selected : narrowest;
+  }
+
+  private static int sizeOrder(MediaArtwork.MediaArtworkType type, int width) {
+    if (width <= 0) {
+      return 0;
+    }
+    return type == MediaArtwork.MediaArtworkType.POSTER ? MediaArtwork.PosterSizes.getSizeOrder(width)
+        : MediaArtwork.FanartSizes.getSizeOrder(width);
+  }
+
+  /**
+   * Resolve the photo URLs of several performers concurrently. The fetches run on a bounded executor (see the
+   * "actorFetchParallelism" option) and the call waits until all of them are done or "actorFetchTimeout" seconds have
+   * passed; fetches still running at that point are cancelled.
+   *
+   * @param performerUrls
+   *          the performer profile URLs (empty entries are skipped)
+   * @return the photo URLs in the same order as the given profile URLs; an empty string for every performer without a
+   *         photo
+   */
+  private List<String> getActorPhotoUrls(List<String> performerUrls) {
+    List<String> photoUrls = new ArrayList<>(performerUrls.size());
+    List<Callable<String>> tasks = new ArrayList<>(performerUrls.size());
+    Deadline deadline = Deadline.current();
+    for (String performerUrl : performerUrls) {
+      photoUrls.add("");
+      Callable<String> task = () -> getActorPhotoUrl(performerUrl);
+      tasks.add(deadline != null ? deadline.wrap(task) : task);
+    }
+
+    if (tasks.isEmpty()) {
+      return photoUrls;
+    }
+
+    // 超时的演员没有照片
+    long timeout = TimeUnit.SECONDS.toNanos(getConfigInteger("actorFetchTimeout", 30));
+    if (deadline != null) {
+      timeout = Math.max(0, Math.min(timeout, deadline.remainingNanos()));
+    }
+    long end = System.nanoTime() + timeout;
+
+    ExecutorService executor = getActorExecutor();
+    List<Future<String>> futures = new ArrayList<>(tasks.size());
+    for (Callable<String> task : tasks) {
+      futures.add(executor.submit(task));
+    }
+
+    try {
+      for (int i = 0; i < futures.size(); i++) {
+        try {
+          photoUrls.set(i, futures.get(i).get(Math.max(0, end - System.nanoTime()), TimeUnit.NANOSECONDS));
+        }
+        catch (TimeoutException e) {
+          LOGGER.debug("Timed out getting actor photo from: {}", performerUrls.get(i));
+        }
+        catch (ExecutionException e) {
+          LOGGER.debug("Error getting actor photo from {}: {}", performerUrls.get(i), e.getMessage());
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.debug("Interrupted while getting actor photos");
+    }
+    finally {
+      // 不中断正在运行的请求：其他刮削可能在等待同一个演员（SingleFlight），它们由时间预算和请求超时限制
+      for (Future<String> future : futures) {
+        future.cancel(false);
+      }
+    }
+
+    return photoUrls;
+  }
+
+  /**
+   * the executor of the actor photo fetches; a changed "actorFetchParallelism" resizes it, so the tasks of running
+   * scrapes are never rejected
+   */
+  private synchronized ExecutorService getActorExecutor() {
+    int size = Math.max(1, getConfigInteger("actorFetchParallelism", 4));
+    if (actorExecutor == null) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      actorExecutor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, "vixen-actor-photo-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+      actorExecutor.allowCoreThreadTimeOut(true);
+    }
+    else if (size > actorExecutor.getMaximumPoolSize()) {
+      // the maximum must never be below the core size
+      actorExecutor.setMaximumPoolSize(size);
+      actorExecutor.setCorePoolSize(size);
+    }
+    else if (size < actorExecutor.getMaximumPoolSize()) {
+      actorExecutor.setCorePoolSize(size);
+      actorExecutor.setMaximumPoolSize(size);
+    }
+    return actorExecutor;
+  }
+
+  private static ExecutorService createFallbackExecutor() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(FALLBACK_PARALLELISM, FALLBACK_PARALLELISM, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+          Thread thread = new Thread(r, "vixen-fallback-search-" + threadNumber.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * the base URL of the site (without trailing slash)
+   */
+  String getBaseUrl() {
+    return baseUrl;
+  }
+
+  private String getConfigText(String key, String defaultValue) {
+    String value = providerInfo.getConfig().getValue(key);
+    return value != null && !value.isEmpty() ? value : defaultValue;
+  }
+
+  private int getConfigInteger(String key, int defaultValue) {
+    Integer value = providerInfo.getConfig().getValueAsInteger(key);
+    return value != null ? value : defaultValue;
+  }
+
+  /**
+   * 获取演员照片URL，优先使用缓存（包括"没有照片"的结果）
    * 
    * @param performerUrl 演员个人页面URL
    * @return 照片URL，如果获取失败则返回空字符串
    */
-  private String getActorPhotoUrl(String performerUrl) {
+  String getActorPhotoUrl(String performerUrl) {
     if (performerUrl == null || performerUrl.isEmpty()) {
       return "";
     }
-    
+
+    float density = getActorPhotoDensity();
+    String cacheKey = actorPhotoCacheKey(performerUrl);
+
+    ActorPhotoCache cache = ActorPhotoCache.getInstance();
+    String cachedUrl = cache.get(cacheKey, getActorPhotoTtl());
+    if (cachedUrl != null) {
+      LOGGER.debug("Using cached actor photo for {}: '{}'", performerUrl, cachedUrl);
+      return cachedUrl;
+    }
+
     try {
-      LOGGER.debug("Getting actor photo from: {}", performerUrl);
-      
-      // 连接到演员个人页面
-      Document doc = Jsoup.connect(performerUrl)
-          .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
-          .timeout(10000)
-          .get();
-      
-      // 使用选择器获取图片元素
-      // 主选择器 - 基于用户提供的信息
-      Element imgElement = doc.selectFirst("#__next > main > section > section > aside > div > picture > img");
-      
-      // 备选选择器 - 防止页面结构变化
-      if (imgElement == null) {
-        imgElement = doc.select("img[alt*='" + performerUrl.substring(performerUrl.lastIndexOf("/") + 1).replace("-", " ") + "']").first();
+      // 多个线程同时需要同一个演员时，只获取并解析一次
+      return ACTOR_PHOTOS_IN_FLIGHT.execute(cacheKey, () -> {
+        String photoUrl = fetchActorPhotoUrl(performerUrl, density);
+        cache.put(cacheKey, photoUrl);
+        return photoUrl;
+      });
+    } catch (InterruptedIOException e) {
+      // 时间预算用完或请求被取消
+      LOGGER.debug("Cancelled getting actor photo from {}: {}", performerUrl, e.getMessage());
+      return "";
+    } catch (Exception e) {
+      // 网络错误不写入缓存，下次再试
+      LOGGER.error("Error getting actor photo: {}", e.getMessage(), e);
+      return "";
+    }
+  }
+
+  // 演员照片缓存的有效期，每个网站可以单独设置
+  private long getActorPhotoTtl() {
+    return TimeUnit.DAYS.toMillis(getConfigInteger("actorPhotoCacheDays", 30));
+  }
+
+  // 照片尺寸：2x为高分辨率，1x为普通分辨率
+  private float getActorPhotoDensity() {
+    return "1x".equals(getConfigText("actorPhotoSize", "2x")) ? 1f : 2f;
+  }
+
+  // 同一演员在各网站的页面同名，所有网站共用一个缓存条目；不同尺寸分别缓存
+  private String actorPhotoCacheKey(String performerUrl) {
+    String performerKey = VixenSite.performerKey(performerUrl);
+    return getActorPhotoDensity() == 2f ? performerKey : performerKey + " 1x";
+  }
+
+  /**
+   * 从演员个人页面获取演员照片URL
+   * 
+   * @param performerUrl 演员个人页面URL
+   * @return 照片URL，如果页面上没有照片则返回空字符串
+   * @throws IOException 无法获取演员页面
+   */
+  private String fetchActorPhotoUrl(String performerUrl, float density) throws IOException {
+    LOGGER.debug("Getting actor photo from: {}", performerUrl);
+    
+    // 连接到演员个人页面
+    return ScraperMetrics.getInstance().time(ScraperMetrics.Phase.ACTOR_FETCH,
+        () -> extractActorPhotoUrl(VixenHttpClient.getInstance().getDocument(performerUrl, MODEL_PAGE_END), performerUrl, density));
+  }
+
+  /**
+   * 从演员个人页面中提取指定像素密度的演员照片URL
+   *
+   * @param doc 演员个人页面
+   * @param performerUrl 演员个人页面URL
+   * @param density 像素密度（1或2）
+   * @return 照片URL，如果页面上没有照片则返回空字符串
+   */
+  static String extractActorPhotoUrl(Document doc, String performerUrl, float density) {
+    // 使用选择器获取图片元素
+    // 主选择器 - 基于用户提供的信息
+    Element imgElement = doc.selectFirst("#__next > main > section > section > aside > div > picture > img");
+    
+    // 备选选择器 - 防止页面结构变化
+    if (imgElement == null) {
+      imgElement = doc.select("img[alt*='" + performerUrl.substring(performerUrl.lastIndexOf("/") + 1).replace("-", " ") + "']").first();
+    }
+    
+    if (imgElement == null) {
+      // 再尝试更通用的选择器
+      imgElement = doc.select("img.ProgressiveImage__StyledImg-ptxr6s-2").first();
+    }
+    
+    if (imgElement != null) {
+      // outerHtml()很耗时，只在trace级别时生成
+      if (LOGGER.isTraceEnabled()) {
+        LOGGER.trace("Found image element with outerHTML: {}", imgElement.outerHtml());
       }
       
-      if (imgElement == null) {
-        // 再尝试更通用的选择器
-        imgElement = doc.select("img.ProgressiveImage__StyledImg-ptxr6s-2").first();
+      // 优先使用srcset中指定密度的图片（默认2x），没有时取最后一个（通常是最高分辨率）
+      String highResUrl = VixenParserUtils.densityUrl(VixenParserUtils.parseSrcset(imgElement.attr("srcset")), density);
+      if (!highResUrl.isEmpty()) {
+        LOGGER.debug("Extracted high-res photo URL from srcset: {}", highResUrl);
+        return highResUrl;
       }
       
-      if (imgElement != null) {
-        LOGGER.debug("Found image element with outerHTML: {}", imgElement.outerHtml());
+      // 如果srcset没有有效内容，回退到src
+      String src = imgElement.attr("src");
+      if (src != null && !src.isEmpty()) {
+        // 替换HTML实体字符
+        src = VixenParserUtils.unescape(src);
         
-        // 优先使用srcset中的高分辨率图片
-        String srcset = imgElement.attr("srcset");
-        if (srcset != null && !srcset.isEmpty()) {
-          LOGGER.debug("Found srcset: {}", srcset);
-          
-          // 提取包含"2x"的URL部分
-          int index2x = srcset.lastIndexOf(" 2x");
-          if (index2x > 0) {
-            // 从最后一个逗号到2x之前是我们需要的URL
-            int lastCommaIndex = srcset.lastIndexOf(",", index2x);
-            String highResUrl;
-            
-            if (lastCommaIndex > 0) {
-              // 有逗号分隔，取最后一部分
-              highResUrl = srcset.substring(lastCommaIndex + 1, index2x).trim();
-            } else {
-              // 没有逗号，可能只有一个URL
-              highResUrl = srcset.substring(0, index2x).trim();
-              // 检查是否有空格（表示分辨率标记）
-              int spaceIndex = highResUrl.lastIndexOf(" ");
-              if (spaceIndex > 0) {
-                highResUrl = highResUrl.substring(0, spaceIndex).trim();
-              }
-            }
-            
-            // 替换HTML实体字符
-            highResUrl = highResUrl.replace("&amp;", "&");
-            
-            LOGGER.debug("Extracted high-res (2x) photo URL: {}", highResUrl);
-            return highResUrl;
-          }
-          
-          // 如果没有2x版本，尝试解析完整的srcset
-          String[] srcsetParts = srcset.split(", ");
-          if (srcsetParts.length > 0) {
-            // 取最后一个部分（通常是最高分辨率）
-            String lastPart = srcsetParts[srcsetParts.length - 1];
-            // 提取URL部分（去除分辨率标记）
-            int spaceIndex = lastPart.lastIndexOf(" ");
-            String highResUrl = spaceIndex > 0 ? lastPart.substring(0, spaceIndex).trim() : lastPart.trim();
-            
-            // 替换HTML实体字符
-            highResUrl = highResUrl.replace("&amp;", "&");
-            
-            LOGGER.debug("Extracted highest-res photo URL from srcset: {}", highResUrl);
-            return highResUrl;
-          }
+        LOGGER.debug("Found actor photo from src: {}", src);
+        return src;
+      }
+    }
+    
+    LOGGER.debug("Could not find actor photo");
+    return "";
+  }
+
+  /**
+   * Serves the texts of all sites from the Vixen messages: tMM looks them up by provider id (&lt;id&gt;.description,
+   * scraper.&lt;id&gt;.&lt;option&gt;)
+   */
+  private static class SiteMessages extends ResourceBundle {
+    private final ResourceBundle messages;
+    private final String         siteId;
+    private final Set<String>    keys = new LinkedHashSet<>();
+
+    private SiteMessages(ResourceBundle messages, String siteId) {
+      this.messages = messages;
+      this.siteId = siteId;
+      // containsKey/keySet 依赖 handleKeySet，所以按本网站的 id 改写所有键
+      for (String key : messages.keySet()) {
+        if (key.startsWith("scraper.vixen.")) {
+          keys.add("scraper." + siteId + "." + key.substring("scraper.vixen.".length()));
         }
-        
-        // 如果srcset没有有效内容，回退到src
-        String src = imgElement.attr("src");
-        if (src != null && !src.isEmpty()) {
-          // 替换HTML实体字符
-          src = src.replace("&amp;", "&");
-          
-          LOGGER.debug("Found actor photo from src: {}", src);
-          return src;
+        else if (key.startsWith("vixen.")) {
+          keys.add(siteId + "." + key.substring("vixen.".length()));
+        }
+        else {
+          keys.add(key);
         }
       }
-      
-      LOGGER.debug("Could not find actor photo");
-      return "";
-    } catch (Exception e) {
-      LOGGER.error("Error getting actor photo: {}", e.getMessage(), e);
-      return "";
+    }
+
+    @Override
+    protected Object handleGetObject(String key) {
+      if (key.startsWith("scraper." + siteId + ".")) {
+        key = "scraper.vixen." + key.substring(siteId.length() + 9);
+      }
+      else if (key.startsWith(siteId + ".")) {
+        key = "vixen." + key.substring(siteId.length() + 1);
+      }
+      return messages.containsKey(key) ? messages.getObject(key) : null;
+    }
+
+    @Override
+    protected Set<String> handleKeySet() {
+      return keys;
+    }
+
+    @Override
+    public Enumeration<String> getKeys() {
+      return Collections.enumeration(keys);
     }
   }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,302 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Allocation-light helpers for the hot paths of the scraper: filename parsing, search term normalization, search
+ * scoring, date parsing and srcset handling. All patterns and formatters are compiled once and are thread safe.
+ *
+ * @author YourName
+ */
+class VixenParserUtils {
+  // Vixen.YY.MM.DD.Name.More.XXX...
+  private static final Pattern           FILENAME_PATTERN = Pattern.compile("\\d{2}\\.\\d{2}\\.\\d{2}\\.(\\w+)\\.");
+  // e.g. "May 14, 2023"; lenient like the SimpleDateFormat it replaces (February 30 rolls over to March 2)
+  private static final DateTimeFormatter RELEASE_DATE     = new DateTimeFormatterBuilder().parseCaseInsensitive()
+      .appendPattern("MMMM d, yyyy")
+      .toFormatter(Locale.US)
+      .withResolverStyle(ResolverStyle.LENIENT);
+
+  private VixenParserUtils() {
+    // hide the public constructor for utility classes
+  }
+
+  /**
+   * Extract the search keyword from a filename like Vixen.YY.MM.DD.Name.More.XXX
+   *
+   * @param filename
+   *          the filename to extract from
+   * @return the extracted search keyword ("Name") or the filename itself if it does not follow the naming convention
+   */
+  static String extractSearchKeyword(String filename) {
+    if (filename == null || filename.isEmpty()) {
+      return "";
+    }
+
+    Matcher matcher = FILENAME_PATTERN.matcher(filename);
+    if (matcher.find()) {
+      return matcher.group(1);
+    }
+
+    // If pattern doesn't match, just return the filename
+    return filename;
+  }
+
+  /**
+   * Replace everything except ASCII letters and digits with a space and collapse/trim the spaces in a single pass
+   *
+   * @param term
+   *          the raw search term
+   * @return the normalized search term
+   */
+  static String normalizeSearchTerm(String term) {
+    StringBuilder sb = new StringBuilder(term.length());
+    boolean pendingSpace = false;
+
+    for (int i = 0; i < term.length(); i++) {
+      char c = term.charAt(i);
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+        if (pendingSpace && sb.length() > 0) {
+          sb.append(' ');
+        }
+        pendingSpace = false;
+        sb.append(c);
+      }
+      else {
+        pendingSpace = true;
+      }
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Build a readable title from the slug of a video URL (/videos/some-title -> Some title)
+   *
+   * @param href
+   *          the video URL
+   * @return the title or an empty string if the URL is not a video URL
+   */
+  static String titleFromUrl(String href) {
+    if (!href.contains("/videos/")) {
+      return "";
+    }
+
+    String title = href.substring(href.lastIndexOf('/') + 1).replace('-', ' ');
+    if (title.isEmpty()) {
+      return "";
+    }
+    return Character.toUpperCase(title.charAt(0)) + title.substring(1);
+  }
+
+  /**
+   * Parse the release date as rendered on the detail page (e.g. "May 14, 2023"); text after the date is ignored
+   *
+   * @param text
+   *          the date text
+   * @return the date
+   * @throws DateTimeParseException
+   *           if the text is not a valid date
+   */
+  static LocalDate parseReleaseDate(String text) {
+    return RELEASE_DATE.parse(text.trim(), new ParsePosition(0)).query(LocalDate::from);
+  }
+
+  /**
+   * Parse a srcset attribute in a single pass
+   *
+   * @param srcset
+   *          the srcset attribute value
+   * @return all candidates in document order; an empty list if there are none
+   */
+  static List<SrcsetCandidate> parseSrcset(String srcset) {
+    if (srcset == null || srcset.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<SrcsetCandidate> candidates = new ArrayList<>(4);
+    int length = srcset.length();
+    int i = 0;
+
+    while (i < length) {
+      // skip whitespace and separating commas
+      while (i < length && (Character.isWhitespace(srcset.charAt(i)) || srcset.charAt(i) == ',')) {
+        i++;
+      }
+      if (i >= length) {
+        break;
+      }
+
+      // the URL runs up to the next whitespace; a trailing comma ends the candidate without descriptor
+      int urlStart = i;
+      while (i < length && !Character.isWhitespace(srcset.charAt(i))) {
+        i++;
+      }
+      int urlEnd = i;
+      boolean hasDescriptor = true;
+      if (srcset.charAt(urlEnd - 1) == ',') {
+        urlEnd--;
+        hasDescriptor = false;
+      }
+
+      int width = 0;
+      float density = 0;
+      if (hasDescriptor) {
+        while (i < length && Character.isWhitespace(srcset.charAt(i))) {
+          i++;
+        }
+        int descriptorStart = i;
+        while (i < length && srcset.charAt(i) != ',') {
+          i++;
+        }
+        int descriptorEnd = i;
+        while (descriptorEnd > descriptorStart && Character.isWhitespace(srcset.charAt(descriptorEnd - 1))) {
+          descriptorEnd--;
+        }
+
+        if (descriptorEnd > descriptorStart) {
+          char unit = srcset.charAt(descriptorEnd - 1);
+          try {
+            if (unit == 'w') {
+              width = Integer.parseInt(srcset, descriptorStart, descriptorEnd - 1, 10);
+            }
+            else if (unit == 'x') {
+              density = Float.parseFloat(srcset.substring(descriptorStart, descriptorEnd - 1));
+            }
+          }
+          catch (NumberFormatException e) {
+            // unknown descriptor - keep the URL without it
+          }
+        }
+      }
+
+      if (urlEnd > urlStart) {
+        candidates.add(new SrcsetCandidate(unescape(srcset.substring(urlStart, urlEnd)), width, density));
+      }
+    }
+
+    return candidates;
+  }
+
+  /**
+   * Pick the last candidate of a srcset with the given pixel density, otherwise the last one (the largest one in the
+   * srcsets of the site)
+   *
+   * @param candidates
+   *          the parsed srcset
+   * @param density
+   *          the density (1 or 2)
+   * @return the URL or an empty string if there are no candidates
+   */
+  static String densityUrl(List<SrcsetCandidate> candidates, float density) {
+    for (int i = candidates.size() - 1; i >= 0; i--) {
+      if (candidates.get(i).density == density) {
+        return candidates.get(i).url;
+      }
+    }
+    return candidates.isEmpty() ? "" : candidates.get(candidates.size() - 1).url;
+  }
+
+  /**
+   * replace the HTML entity for &amp; which is sometimes left over in URLs of the site
+   */
+  static String unescape(String url) {
+    return url.indexOf("&amp;") >= 0 ? url.replace("&amp;", "&") : url;
+  }
+
+  /**
+   * A search term prepared once per search, so scoring a result does not allocate anything but the lower-cased title
+   * and URL
+   */
+  static class SearchScorer {
+    private final String   term;
+    private final String   urlTerm;
+    private final String[] words;
+
+    SearchScorer(String searchTerm) {
+      this.term = searchTerm.toLowerCase(Locale.ROOT);
+      this.urlTerm = term.replace(' ', '-');
+      this.words = term.split(" ");
+    }
+
+    /**
+     * Score a search result
+     *
+     * @param title
+     *          the title of the result
+     * @param url
+     *          the URL of the result
+     * @return the score; 0 if the result does not match at all
+     */
+    float score(String title, String url) {
+      float score = 0.0f;
+      String titleLower = title.toLowerCase(Locale.ROOT);
+
+      // 基础分数：标题包含搜索词
+      if (titleLower.contains(term)) {
+        score += 1.0f; // 完全匹配加满分
+      }
+      else {
+        // 部分匹配：按匹配单词数计分
+        int matchedWords = 0;
+        for (String word : words) {
+          if (word.length() > 2 && titleLower.contains(word)) { // 忽略太短的单词
+            matchedWords++;
+          }
+        }
+
+        if (matchedWords > 0) {
+          score += 0.5f + (0.5f * matchedWords / words.length);
+        }
+      }
+
+      // 额外加分：标题的开头部分匹配
+      if (titleLower.startsWith(term)) {
+        score += 0.3f;
+      }
+
+      // 额外加分：URL中包含搜索词，可能表示更相关
+      if (url.toLowerCase(Locale.ROOT).contains(urlTerm)) {
+        score += 0.2f;
+      }
+
+      // 如果分数为0但有一些单词匹配，给一个最小分数
+      if (score == 0.0f) {
+        for (String word : words) {
+          if (word.length() > 3 && titleLower.contains(word)) {
+            score = 0.1f;
+            break;
+          }
+        }
+      }
+
+      return score;
+    }
+  }
+
+  /**
+   * one candidate of a srcset; width and density are 0 if the candidate has no such descriptor
+   */
+  static class SrcsetCandidate {
+    final String url;
+    final int    width;
+    final float  density;
+
+    SrcsetCandidate(String url, int width, float density) {
+      this.url = url;
+      this.width = width;
+      this.density = density;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The raw data of a scene as extracted from its detail page, before it is mapped onto tMM's {@code MediaMetadata}.
+ * Every field is null as long as no extractor could find it.
+ *
+ * @author YourName
+ */
+class VixenScene {
+  String            title;
+  List<Model>       models;
+  LocalDate         releaseDate;
+  List<String>      directors;
+  String            plot;
+  Integer           runtime;
+  Float             rating;
+  List<Image>       poster;
+  List<List<Image>> gallery;
+
+  /**
+   * true if all fields which are read from the detail page are filled; the gallery is optional
+   */
+  boolean isComplete() {
+    return title != null && models != null && releaseDate != null && directors != null && plot != null && runtime != null && rating != null
+        && poster != null;
+  }
+
+  /**
+   * the URL of the widest size of the poster or null if there is none
+   */
+  String getPosterUrl() {
+    Image widest = Image.widest(poster);
+    return widest != null ? widest.url : null;
+  }
+
+  /**
+   * a performer of the scene
+   */
+  static class Model {
+    final String name;
+    final String url;
+
+    Model(String name, String url) {
+      this.name = name;
+      this.url = url;
+    }
+  }
+
+  /**
+   * one size of an image; width and height are 0 if unknown
+   */
+  static class Image {
+    final String url;
+    final int    width;
+    final int    height;
+
+    Image(String url, int width, int height) {
+      this.url = url;
+      this.width = width;
+      this.height = height;
+    }
+
+    /**
+     * the widest of the given sizes (the last one if no width is known) or null if there are none
+     */
+    static Image widest(List<Image> sizes) {
+      if (sizes == null || sizes.isEmpty()) {
+        return null;
+      }
+      Image widest = sizes.get(sizes.size() - 1);
+      for (Image size : sizes) {
+        if (size.width > widest.width) {
+          widest = size;
+        }
+      }
+      return widest;
+    }
+  }
+}
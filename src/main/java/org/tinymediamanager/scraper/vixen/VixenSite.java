@@ -0,0 +1,112 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * The sites of the Vixen network. They all run the same platform with the same page structure, so one engine scrapes
+ * all of them; only the provider id, the name and the base URL differ.
+ *
+ * @author YourName
+ */
+enum VixenSite {
+  VIXEN("vixen", "Vixen", "https://www.vixen.com"),
+  TUSHY("tushy", "Tushy", "https://www.tushy.com"),
+  TUSHY_RAW("tushyraw", "Tushy Raw", "https://www.tushyraw.com"),
+  BLACKED("blacked", "Blacked", "https://www.blacked.com"),
+  BLACKED_RAW("blackedraw", "Blacked Raw", "https://www.blackedraw.com"),
+  DEEPER("deeper", "Deeper", "https://www.deeper.com"),
+  SLAYED("slayed", "Slayed", "https://www.slayed.com"),
+  MILFY("milfy", "Milfy", "https://www.milfy.com");
+
+  // all sites are served by the same platform, so they share one request budget
+  private static final String NETWORK = "vixen-network";
+
+  private final String        id;
+  private final String        name;
+  private final String        baseUrl;
+
+  VixenSite(String id, String name, String baseUrl) {
+    this.id = id;
+    this.name = name;
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * the id of the provider of this site (also used for the ids of the scraped metadata)
+   */
+  String getId() {
+    return id;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  /**
+   * the default base URL of the site, without trailing slash
+   */
+  String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /**
+   * the site of the given filename prefix (e.g. "Vixen" or "TushyRaw"), case insensitive; null if it is no site of the
+   * network
+   */
+  static VixenSite forPrefix(String prefix) {
+    if (prefix == null) {
+      return null;
+    }
+    String normalized = prefix.toLowerCase(Locale.ROOT);
+    for (VixenSite site : values()) {
+      if (site.id.equals(normalized)) {
+        return site;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * the key of the {@link HostThrottle} for the given host: one for all sites of the network, the host itself otherwise
+   * (e.g. image CDNs or a replay server)
+   */
+  static String throttleKey(String host) {
+    if (host == null) {
+      return "";
+    }
+    String normalized = host.toLowerCase(Locale.ROOT);
+    if (normalized.startsWith("www.")) {
+      normalized = normalized.substring(4);
+    }
+    for (VixenSite site : values()) {
+      if (normalized.equals(site.id + ".com")) {
+        return NETWORK;
+      }
+    }
+    return host;
+  }
+
+  /**
+   * The key of a performer across all sites: performers appear on several sites of the network, each with a profile
+   * page of the same name, so their photo is resolved only once
+   *
+   * @param performerUrl
+   *          the profile URL of the performer on any site
+   * @return the key
+   */
+  static String performerKey(String performerUrl) {
+    try {
+      String path = new URI(performerUrl).getPath();
+      int index = path == null ? -1 : path.lastIndexOf("/models/");
+      if (index >= 0) {
+        return path.substring(index + 1);
+      }
+    }
+    catch (URISyntaxException e) {
+      // fall through to the URL
+    }
+    return VixenHttpClient.normalizeUrl(performerUrl);
+  }
+}
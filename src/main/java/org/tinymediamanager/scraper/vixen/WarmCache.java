@@ -0,0 +1,171 @@
+package org.tinymediamanager.scraper.vixen;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tinymediamanager.Globals;
+
+/**
+ * A binary snapshot of the in-memory state of the caches, so the first scrapes after a restart start warm: the resolved
+ * performer photos of the memory tier of the {@link ActorPhotoCache} and the LRU index of the {@link ResponseCache}
+ * (which otherwise has to list and stat every cached page).
+ * <p>
+ * The snapshot is restored lazily on the first search or scrape - never while the provider is created - and written
+ * periodically and at shutdown. It is versioned: a snapshot of another version is deleted and the caches start cold. A
+ * part is only restored if the folder of its cache did not change after the snapshot was written.
+ *
+ * @author YourName
+ */
+class WarmCache {
+  private static final Logger      LOGGER   = LoggerFactory.getLogger(WarmCache.class);
+  private static final int         MAGIC    = 0x56574353;
+  private static final int         VERSION  = 2;
+  private static final WarmCache   INSTANCE = new WarmCache(Paths.get(Globals.CACHE_FOLDER, "vixen", "warm-cache.bin"));
+
+  private final Path               file;
+  private volatile boolean         restored = false;
+
+  private ScheduledExecutorService executor;
+  private ScheduledFuture<?>       task;
+  private int                      intervalMinutes;
+
+  private WarmCache(Path file) {
+    this.file = file;
+    Runtime.getRuntime().addShutdownHook(new Thread(this::write, "vixen-warm-cache-shutdown"));
+  }
+
+  static WarmCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * restore the snapshot into the caches if that has not happened yet; called before the caches are used
+   */
+  static void restore() {
+    if (!INSTANCE.restored) {
+      INSTANCE.read();
+    }
+  }
+
+  /**
+   * set the interval of the periodic snapshots; 0 writes the snapshot only at shutdown
+   *
+   * @param minutes
+   *          the interval in minutes
+   */
+  synchronized void setIntervalMinutes(int minutes) {
+    minutes = Math.max(0, minutes);
+    if (minutes == intervalMinutes) {
+      return;
+    }
+
+    intervalMinutes = minutes;
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
+    if (minutes > 0) {
+      if (executor == null) {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+          Thread thread = new Thread(r, "vixen-warm-cache");
+          thread.setDaemon(true);
+          return thread;
+        });
+      }
+      task = executor.scheduleWithFixedDelay(this::write, minutes, minutes, TimeUnit.MINUTES);
+    }
+  }
+
+  private synchronized void read() {
+    if (restored) {
+      return;
+    }
+    restored = true;
+
+    if (!Files.isRegularFile(file)) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    boolean discard = false;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        LOGGER.debug("Discarding warm cache snapshot of another version");
+        discard = true;
+      }
+      else {
+        long writtenAt = in.readLong();
+        ActorPhotoCache.getInstance().readSnapshot(in, writtenAt);
+        ResponseCache.getInstance().readSnapshot(in, writtenAt);
+        LOGGER.debug("Restored warm cache snapshot in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Discarding unreadable warm cache snapshot: {}", e.getMessage());
+      discard = true;
+    }
+
+    if (discard) {
+      try {
+        Files.deleteIfExists(file);
+      }
+      catch (IOException e) {
+        // nothing to do
+      }
+    }
+  }
+
+  private synchronized void write() {
+    if (!restored) {
+      // the caches have not been used, keep the previous snapshot
+      return;
+    }
+
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmp = Files.createTempFile(file.getParent(), "warm-cache", ".tmp");
+      try {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+          out.writeInt(MAGIC);
+          out.writeInt(VERSION);
+          // taken before the caches are read, so every change during the snapshot makes its part invalid
+          out.writeLong(System.currentTimeMillis());
+          ActorPhotoCache.getInstance().writeSnapshot(out);
+          ResponseCache.getInstance().writeSnapshot(out);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally {
+        Files.deleteIfExists(tmp);
+      }
+    }
+    catch (IOException e) {
+      LOGGER.debug("Could not write warm cache snapshot: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * true if no file was added, replaced or removed in the given folder since the given time
+   */
+  static boolean unchangedSince(Path folder, long time) {
+    try {
+      return Files.getLastModifiedTime(folder).toMillis() < time;
+    }
+    catch (IOException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package org.tinymediamanager.scraper.vixen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+import org.tinymediamanager.core.movie.MovieSearchAndScrapeOptions;
+import org.tinymediamanager.scraper.MediaMetadata;
+import org.tinymediamanager.scraper.MediaSearchResult;
+import org.tinymediamanager.scraper.entities.MediaType;
+import org.tinymediamanager.scraper.exceptions.ScrapeException;
+
+/**
+ * Tests for {@link BatchScraper}, with a provider which serves the pages and photos from memory.
+ *
+ * @author YourName
+ */
+public class BatchScraperTest {
+  private static final String BASE_URL = "https://www.vixen.com/videos/";
+
+  @Test
+  public void everyMovieIsReported() throws Exception {
+    FakeProvider provider = new FakeProvider();
+    Results results = scrape(provider, 4, "a", "b", "c", "a", "b");
+
+    assertEquals(5, results.size());
+    assertEquals(Arrays.asList("a", "b", "c"), sorted(new ArrayList<>(results.metadata.keySet())));
+    assertTrue(results.errors.isEmpty());
+    // every performer photo is resolved only once per batch
+    assertEquals(4, provider.photoRequests.size());
+    for (AtomicInteger requests : provider.photoRequests.values()) {
+      assertEquals(1, requests.get());
+    }
+  }
+
+  @Test
+  public void failingStagesDoNotStallTheBatch() throws Exception {
+    FakeProvider provider = new FakeProvider();
+    provider.failFetch.add("fetch-exception");
+    provider.fetchError.add("fetch-error");
+    provider.parseError.add("parse-error");
+    provider.buildError.add("build-error");
+
+    // one thread per stage: a worker killed by an error would stop the whole pipeline
+    Results results = scrape(provider, 1, "a", "fetch-exception", "fetch-error", "parse-error", "build-error", "b");
+
+    assertEquals(6, results.size());
+    assertEquals(Arrays.asList("a", "b"), sorted(new ArrayList<>(results.metadata.keySet())));
+    assertEquals(Arrays.asList("build-error", "fetch-error", "fetch-exception", "parse-error"),
+        sorted(new ArrayList<>(results.errors.keySet())));
+    assertTrue(results.errors.get("parse-error").getCause() instanceof StackOverflowError);
+    assertTrue(results.errors.get("fetch-error").getCause() instanceof StackOverflowError);
+  }
+
+  @Test
+  public void failingCallbackDoesNotStallTheBatch() throws Exception {
+    FakeProvider provider = new FakeProvider();
+    AtomicInteger calls = new AtomicInteger();
+    VixenMovieMetadataProvider.BatchCallback callback = new VixenMovieMetadataProvider.BatchCallback() {
+      @Override
+      public void onResult(MovieSearchAndScrapeOptions options, MediaMetadata metadata) {
+        calls.incrementAndGet();
+        throw new StackOverflowError();
+      }
+
+      @Override
+      public void onError(MovieSearchAndScrapeOptions options, ScrapeException exception) {
+        calls.incrementAndGet();
+      }
+    };
+
+    assertFalse(run(provider, 1, options("a", "b", "c"), callback));
+    assertEquals(3, calls.get());
+  }
+
+  private static Results scrape(FakeProvider provider, int concurrency, String... slugs) throws Exception {
+    Results results = new Results();
+    assertFalse(run(provider, concurrency, options(slugs), results), "the batch did not finish");
+    return results;
+  }
+
+  /**
+   * run the batch on another thread; true if it did not finish in time
+   */
+  private static boolean run(FakeProvider provider, int concurrency, List<MovieSearchAndScrapeOptions> options,
+      VixenMovieMetadataProvider.BatchCallback callback) throws Exception {
+    ExecutorService actorExecutor = Executors.newFixedThreadPool(2);
+    try {
+      Thread batch = new Thread(() -> {
+        try {
+          new BatchScraper(provider, actorExecutor, concurrency).scrape(options, callback);
+        }
+        catch (InterruptedException e) {
+          // the test timed out
+        }
+      });
+      batch.setDaemon(true);
+      batch.start();
+      batch.join(10_000);
+      boolean stalled = batch.isAlive();
+      batch.interrupt();
+      return stalled;
+    }
+    finally {
+      actorExecutor.shutdownNow();
+    }
+  }
+
+  private static List<MovieSearchAndScrapeOptions> options(String... slugs) {
+    List<MovieSearchAndScrapeOptions> options = new ArrayList<>();
+    for (String slug : slugs) {
+      MediaSearchResult searchResult = new MediaSearchResult("vixen", MediaType.MOVIE);
+      searchResult.setUrl(BASE_URL + slug);
+      MovieSearchAndScrapeOptions option = new MovieSearchAndScrapeOptions();
+      option.setSearchQuery(slug);
+      option.setSearchResult(searchResult);
+      options.add(option);
+    }
+    return options;
+  }
+
+  private static List<String> sorted(List<String> list) {
+    list.sort(null);
+    return list;
+  }
+
+  /**
+   * collects the results by the search query of the movies
+   */
+  private static class Results implements VixenMovieMetadataProvider.BatchCallback {
+    private final Map<String, MediaMetadata>   metadata = new ConcurrentHashMap<>();
+    private final Map<String, ScrapeException> errors   = new ConcurrentHashMap<>();
+    private final AtomicInteger                calls    = new AtomicInteger();
+
+    @Override
+    public void onResult(MovieSearchAndScrapeOptions options, MediaMetadata md) {
+      calls.incrementAndGet();
+      metadata.put(options.getSearchQuery(), md);
+    }
+
+    @Override
+    public void onError(MovieSearchAndScrapeOptions options, ScrapeException exception) {
+      calls.incrementAndGet();
+      errors.put(options.getSearchQuery(), exception);
+    }
+
+    private int size() {
+      return calls.get();
+    }
+  }
+
+  /**
+   * serves a scene with two performers per page; the listed slugs fail in the named stage
+   */
+  private static class FakeProvider extends VixenMovieMetadataProvider {
+    private final List<String>               failFetch     = new ArrayList<>();
+    private final List<String>               fetchError    = new ArrayList<>();
+    private final List<String>               parseError    = new ArrayList<>();
+    private final List<String>               buildError    = new ArrayList<>();
+    private final Map<String, AtomicInteger> photoRequests = new ConcurrentHashMap<>();
+
+    @Override
+    Document fetchDetailPage(String url) throws IOException {
+      String slug = slug(url);
+      if (failFetch.contains(slug)) {
+        throw new IOException("not found: " + url);
+      }
+      if (fetchError.contains(slug)) {
+        throw new StackOverflowError();
+      }
+      return new Document(url);
+    }
+
+    @Override
+    VixenScene parseScene(Document doc) {
+      String slug = slug(doc.location());
+      if (parseError.contains(slug)) {
+        throw new StackOverflowError();
+      }
+      VixenScene scene = new VixenScene();
+      scene.title = slug;
+      // "a" and "b" share a performer
+      scene.models = Arrays.asList(new VixenScene.Model("Shared", "https://www.vixen.com/performers/shared"),
+          new VixenScene.Model(slug, "https://www.vixen.com/performers/" + slug));
+      return scene;
+    }
+
+    @Override
+    MediaMetadata buildMetadata(VixenScene scene, String url, MovieSearchAndScrapeOptions options, List<String> photoUrls) {
+      if (buildError.contains(scene.title)) {
+        throw new StackOverflowError();
+      }
+      return new MediaMetadata("vixen");
+    }
+
+    @Override
+    String getActorPhotoUrl(String performerUrl) {
+      photoRequests.computeIfAbsent(performerUrl, url -> new AtomicInteger()).incrementAndGet();
+      return performerUrl + ".jpg";
+    }
+
+    private static String slug(String url) {
+      return url.substring(url.lastIndexOf('/') + 1);
+    }
+  }
+}
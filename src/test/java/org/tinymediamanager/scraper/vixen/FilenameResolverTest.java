@@ -0,0 +1,86 @@
+package org.tinymediamanager.scraper.vixen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link FilenameResolver}.
+ *
+ * @author YourName
+ */
+public class FilenameResolverTest {
+
+  @Test
+  public void parse() {
+    Object[][] cases = {
+        // filename, site, release date, performer tokens
+        { "Vixen.23.05.14.Angelika.Grays.XXX.1080p.mp4", VixenSite.VIXEN, "2023-05-14", "angelika grays" },
+        { "vixen.23.05.14.Emily.Willis.And.Jia.Lissa.mp4", VixenSite.VIXEN, "2023-05-14", "emily willis jia lissa" },
+        { "TushyRaw.21.01.02.Name.mp4", VixenSite.TUSHY_RAW, "2021-01-02", "name" },
+        { "Tushy.23.05.14.Name.XXX", VixenSite.TUSHY, "2023-05-14", "name" },
+        // no site prefix or one outside the network
+        { "23.05.14.Name.mp4", null, "2023-05-14", "name" },
+        { "Other.23.05.14.Name.mp4", null, "2023-05-14", "name" } };
+
+    for (Object[] c : cases) {
+      FilenameResolver.ParsedFilename parsed = FilenameResolver.parse((String) c[0]);
+      assertEquals(c[1], parsed.site, (String) c[0]);
+      assertEquals(LocalDate.parse((String) c[2]), parsed.releaseDate, (String) c[0]);
+      assertEquals(c[3], String.join(" ", parsed.performerTokens), (String) c[0]);
+    }
+
+    assertNull(FilenameResolver.parse(null));
+    assertNull(FilenameResolver.parse("Summer Heat"));
+    assertNull(FilenameResolver.parse("Vixen.23.13.40.Name.mp4"));
+  }
+
+  @Test
+  public void resolve() throws IOException {
+    CatalogIndex catalog = catalog(
+        new CatalogIndex.Entry("summer-heat", "Summer Heat", "https://www.vixen.com/videos/summer-heat", LocalDate.of(2023, 5, 14),
+            Arrays.asList("Angelika Grays", "Emily Willis")),
+        new CatalogIndex.Entry("after-hours", "After Hours", "https://www.vixen.com/videos/after-hours", LocalDate.of(2023, 5, 14),
+            Collections.singletonList("Jia Lissa")),
+        // only known from the sitemap: no performers
+        new CatalogIndex.Entry("body-language", "Body Language", "https://www.vixen.com/videos/body-language", LocalDate.of(2023, 5, 21),
+            Collections.emptyList()));
+
+    assertEquals("summer-heat", resolve("Vixen.23.05.14.Angelika.Grays.XXX.mp4", VixenSite.VIXEN, catalog).id);
+    assertEquals("after-hours", resolve("Vixen.23.05.14.Jia.Lissa.mp4", VixenSite.VIXEN, catalog).id);
+
+    // the file of another site is not resolved to a scene of this site
+    assertNull(resolve("Tushy.23.05.14.Angelika.Grays.mp4", VixenSite.VIXEN, catalog));
+    assertNull(resolve("23.05.14.Angelika.Grays.mp4", VixenSite.VIXEN, catalog));
+    // no performer to compare: the single scene of the day is not guessed
+    assertNull(resolve("Vixen.23.05.21.Name.mp4", VixenSite.VIXEN, catalog));
+    assertNull(resolve("Vixen.23.05.21.XXX.mp4", VixenSite.VIXEN, catalog));
+    // no performer matches
+    assertNull(resolve("Vixen.23.05.14.Someone.Else.mp4", VixenSite.VIXEN, catalog));
+    assertNull(resolve("Vixen.23.05.15.Angelika.Grays.mp4", VixenSite.VIXEN, catalog));
+  }
+
+  private static CatalogIndex.Entry resolve(String filename, VixenSite site, CatalogIndex catalog) {
+    return FilenameResolver.resolve(FilenameResolver.parse(filename), site, catalog);
+  }
+
+  private static CatalogIndex catalog(CatalogIndex.Entry... entries) throws IOException {
+    Path folder = Files.createTempDirectory("catalog");
+    try (SceneTable.Writer writer = new SceneTable.Writer(folder.resolve("catalog-1.table"))) {
+      for (CatalogIndex.Entry entry : entries) {
+        writer.add(entry);
+      }
+      writer.finish(System.currentTimeMillis(), true);
+    }
+    return new CatalogIndex(folder);
+  }
+}
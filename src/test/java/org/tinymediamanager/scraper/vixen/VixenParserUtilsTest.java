@@ -0,0 +1,163 @@
+package org.tinymediamanager.scraper.vixen;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Table tests for {@link VixenParserUtils}. The expected values are the results of the regex, split and
+ * SimpleDateFormat based code the helpers replaced; deliberate deviations are marked.
+ *
+ * @author YourName
+ */
+public class VixenParserUtilsTest {
+
+  @Test
+  public void extractSearchKeyword() {
+    String[][] cases = {
+        // filename, keyword
+        { null, "" },
+        { "", "" },
+        { "Vixen.23.05.14.Angelika.Grays.XXX.1080p.mp4", "Angelika" },
+        { "vixen.23.05.14.Emily.Willis.And.Friends.mp4", "Emily" },
+        { "Vixen.23.05.14.Name_2.XXX", "Name_2" },
+        // no naming convention: the filename itself
+        { "Summer Heat", "Summer Heat" },
+        { "Vixen.230514.Name.mp4", "Vixen.230514.Name.mp4" },
+        { "Vixen.23.05.14.Name", "Vixen.23.05.14.Name" },
+        // \w does not match accented letters
+        { "Tushy.21.01.02.Zoë.Doll.XXX.mp4", "Tushy.21.01.02.Zoë.Doll.XXX.mp4" } };
+
+    for (String[] c : cases) {
+      assertEquals(c[1], VixenParserUtils.extractSearchKeyword(c[0]), c[0]);
+    }
+  }
+
+  @Test
+  public void normalizeSearchTerm() {
+    String[][] cases = {
+        // term, normalized
+        { "", "" },
+        { "   ", "" },
+        { "Summer Heat", "Summer Heat" },
+        { "  Summer   Heat  ", "Summer Heat" },
+        { "a\tb\nc", "a b c" },
+        { "Part 2", "Part 2" },
+        { "Emily-Willis & Friends!", "Emily Willis Friends" },
+        { "Jia Lissa's Day_Off", "Jia Lissa s Day Off" },
+        { "x\u00a0y", "x y" },
+        // only ASCII letters and digits are kept
+        { "Zoë Doll", "Zo Doll" },
+        { "Ángela Blanco", "ngela Blanco" },
+        { "ÄÖÜ", "" } };
+
+    for (String[] c : cases) {
+      assertEquals(c[1], VixenParserUtils.normalizeSearchTerm(c[0]), c[0]);
+    }
+    assertThrows(NullPointerException.class, () -> VixenParserUtils.normalizeSearchTerm(null));
+  }
+
+  @Test
+  public void searchScorer() {
+    Object[][] cases = {
+        // normalized search term, title, URL, score
+        { "summer heat", "Summer Heat", "https://www.vixen.com/videos/summer-heat", 1.5f },
+        { "summer heat", "Hot Summer Heat Wave", "https://www.vixen.com/videos/hot-summer-heat-wave", 1.2f },
+        { "summer heat", "Heat of the summer", "https://www.vixen.com/videos/heat-of-the-summer", 1.0f },
+        { "summer heat", "Winter Cold", "https://www.vixen.com/videos/winter-cold", 0.0f },
+        { "emily willis", "Emily", "https://www.vixen.com/videos/x", 0.75f },
+        // words of up to 2 characters are not counted, but still divide
+        { "an emily", "Emily Willis", "https://www.vixen.com/videos/emily-willis", 0.75f },
+        { "ab cd", "abxcd", "u", 0.0f },
+        { "", "Anything", "https://www.vixen.com/videos/anything", 1.5f },
+        { "Summer Heat", "SUMMER HEAT 2", "https://WWW.VIXEN.COM/videos/Summer-Heat-2", 1.5f },
+        { "zo doll", "Zoë Doll", "https://www.vixen.com/videos/zoe-doll", 0.75f } };
+
+    for (Object[] c : cases) {
+      float score = new VixenParserUtils.SearchScorer((String) c[0]).score((String) c[1], (String) c[2]);
+      assertEquals((float) c[3], score, 0.0001f, c[0] + " / " + c[1]);
+    }
+  }
+
+  @Test
+  public void parseReleaseDate() {
+    String[][] cases = {
+        // text, date
+        { "May 14, 2023", "2023-05-14" },
+        { "may 14, 2023", "2023-05-14" },
+        { "MAY 14, 2023", "2023-05-14" },
+        { "May 4, 2023", "2023-05-04" },
+        { " May 14, 2023 ", "2023-05-14" },
+        { "December 31, 1999", "1999-12-31" },
+        { "February 29, 2024", "2024-02-29" },
+        // lenient: invalid days roll over, text after the date is ignored
+        { "February 30, 2023", "2023-03-02" },
+        { "May 14, 2023 8:00", "2023-05-14" } };
+
+    for (String[] c : cases) {
+      assertEquals(LocalDate.parse(c[1]), VixenParserUtils.parseReleaseDate(c[0]), c[0]);
+    }
+
+    for (String text : new String[] { "", "Sept 1, 2023", "2023-05-14", "May 14 2023" }) {
+      assertThrows(DateTimeParseException.class, () -> VixenParserUtils.parseReleaseDate(text), text);
+    }
+    assertThrows(NullPointerException.class, () -> VixenParserUtils.parseReleaseDate(null));
+  }
+
+  @Test
+  public void parseSrcset() {
+    assertTrue(VixenParserUtils.parseSrcset(null).isEmpty());
+    assertTrue(VixenParserUtils.parseSrcset("").isEmpty());
+
+    List<VixenParserUtils.SrcsetCandidate> candidates = VixenParserUtils
+        .parseSrcset("https://i/a.jpg 480w, https://i/b.jpg 960w, https://i/c.jpg 1920w");
+    assertEquals(3, candidates.size());
+    assertEquals("https://i/a.jpg", candidates.get(0).url);
+    assertEquals(480, candidates.get(0).width);
+    assertEquals(1920, candidates.get(2).width);
+    assertEquals(0f, candidates.get(2).density);
+
+    candidates = VixenParserUtils.parseSrcset("https://i/a.jpg 1x, https://i/b.jpg 2x");
+    assertEquals(1f, candidates.get(0).density);
+    assertEquals(2f, candidates.get(1).density);
+    assertEquals(0, candidates.get(1).width);
+
+    // without descriptors
+    candidates = VixenParserUtils.parseSrcset("https://i/a.jpg, https://i/b.jpg");
+    assertEquals(2, candidates.size());
+    assertEquals("https://i/b.jpg", candidates.get(1).url);
+    assertEquals(0, candidates.get(1).width);
+    assertEquals(0f, candidates.get(1).density);
+
+    candidates = VixenParserUtils.parseSrcset("https://i/only.jpg");
+    assertEquals(1, candidates.size());
+    assertEquals("https://i/only.jpg", candidates.get(0).url);
+  }
+
+  @Test
+  public void srcsetSelection() {
+    String[][] cases = {
+        // srcset, 1x actor photo, 2x actor photo (last candidate of the density, otherwise last candidate)
+        { "https://i/a.jpg 1x, https://i/b.jpg 2x", "https://i/a.jpg", "https://i/b.jpg" },
+        { "https://i/a.jpg 2x, https://i/b.jpg 1x", "https://i/b.jpg", "https://i/a.jpg" },
+        { "https://i/a.jpg 480w, https://i/b.jpg 960w, https://i/c.jpg 1920w", "https://i/c.jpg", "https://i/c.jpg" },
+        { "https://i/only.jpg", "https://i/only.jpg", "https://i/only.jpg" },
+        { "https://i/only.jpg 2x", "https://i/only.jpg", "https://i/only.jpg" },
+        { "https://i/a.jpg, https://i/b.jpg", "https://i/b.jpg", "https://i/b.jpg" },
+        // deviation: the old code kept "&amp;" and needed ", " between the candidates
+        { "https://i/a.jpg?w=1&amp;h=2 1x, https://i/b.jpg?w=2&amp;h=4 2x", "https://i/a.jpg?w=1&h=2", "https://i/b.jpg?w=2&h=4" },
+        { "https://i/a.jpg 1x,https://i/b.jpg 2x", "https://i/a.jpg", "https://i/b.jpg" } };
+
+    for (String[] c : cases) {
+      List<VixenParserUtils.SrcsetCandidate> candidates = VixenParserUtils.parseSrcset(c[0]);
+      assertEquals(c[1], VixenParserUtils.densityUrl(candidates, 1f), c[0]);
+      assertEquals(c[2], VixenParserUtils.densityUrl(candidates, 2f), c[0]);
+    }
+  }
+}